@@ -0,0 +1,181 @@
+package com.example.demo.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.example.demo.config.JsonLogEncoder;
+import com.example.demo.config.LogContext;
+import com.example.demo.config.LogSamplingFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена журнала на один запрос в потоке запроса. Вывод уходит в OutputStream.nullOutputStream(),
+ * поэтому меряется форматирование и кодирование, а не консоль.
+ * <p>
+ * systemOut - прежний createOrder: семь println с конкатенацией полей заказа.
+ * syncPattern - одна запись с параметрами через обычный консольный шаблон Spring Boot.
+ * syncJson / asyncJson - та же запись с MDC через JsonLogEncoder, в потоке запроса и через AsyncAppender
+ * (в потоке запроса остается только постановка в очередь; при переполнении запись отбрасывается, как в prod).
+ * sampledDebug - построчный DEBUG через LogSamplingFilter (каждая сотая запись), disabledDebug - DEBUG выключен.
+ * Запуск: ./gradlew jmh -Pjmh.includes=LoggingBenchmark (с -prof gc - байты на операцию)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n";
+
+    private LoggerContext context;
+    private PrintStream out;
+    private Logger patternLogger;
+    private Logger jsonLogger;
+    private Logger asyncLogger;
+    private Logger sampledLogger;
+    private Logger disabledLogger;
+
+    private final Long telegramUserId = 731245678L;
+    private final String username = "ivan_petrov";
+    private final String university = "МГУ им. М. В. Ломоносова";
+    private final String subject = "Линейная алгебра";
+    private final String category = "Математика";
+    private final String description = "Контрольная работа: 6 задач на собственные значения и жорданову форму";
+    private final String price = "2500";
+    private final Long orderId = 10452L;
+
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+        out = new PrintStream(OutputStream.nullOutputStream(), false);
+
+        PatternLayoutEncoder pattern = new PatternLayoutEncoder();
+        pattern.setContext(context);
+        pattern.setPattern(PATTERN);
+        pattern.start();
+        patternLogger = logger("pattern", Level.INFO, appender("PATTERN", pattern));
+
+        OutputStreamAppender<ILoggingEvent> json = appender("JSON", jsonEncoder());
+        jsonLogger = logger("json", Level.INFO, json);
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC_JSON");
+        async.setQueueSize(8192);
+        async.setIncludeCallerData(false);
+        async.setNeverBlock(true);
+        async.addAppender(appender("JSON_FOR_ASYNC", jsonEncoder()));
+        async.start();
+        asyncLogger = logger("async", Level.INFO, async);
+        sampledLogger = logger("sampled", Level.DEBUG, async);
+        disabledLogger = logger("disabled", Level.INFO, async);
+
+        LogSamplingFilter sampling = new LogSamplingFilter();
+        sampling.setContext(context);
+        sampling.addLogger("sampled");
+        sampling.setRate(100);
+        sampling.start();
+        context.addTurboFilter(sampling);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MDC.clear();
+        context.stop();
+    }
+
+    @Benchmark
+    public void systemOut() {
+        out.println("=== CREATE ORDER REQUEST ===");
+        out.println("Telegram User ID: " + telegramUserId);
+        out.println("Telegram Username: " + username);
+        out.println("University: " + university);
+        out.println("Subject: " + subject);
+        out.println("Description: " + description);
+        out.println("Price: " + price);
+    }
+
+    @Benchmark
+    public void syncPattern() {
+        patternLogger.info("Create order request: username {}, university {}, subject {}, category {}, price {}",
+                username, university, subject, category, price);
+    }
+
+    @Benchmark
+    public void syncJson() {
+        LogContext.put(LogContext.USER_ID, telegramUserId);
+        try {
+            jsonLogger.info("Order {} created", orderId);
+        } finally {
+            LogContext.remove(LogContext.USER_ID);
+        }
+    }
+
+    @Benchmark
+    public void asyncJson() {
+        LogContext.put(LogContext.USER_ID, telegramUserId);
+        try {
+            asyncLogger.info("Order {} created", orderId);
+        } finally {
+            LogContext.remove(LogContext.USER_ID);
+        }
+    }
+
+    @Benchmark
+    public void sampledDebug() {
+        sampledLogger.debug("Sending message in session {} from user {}: {}", "s-10452", telegramUserId, description);
+    }
+
+    @Benchmark
+    public void disabledDebug() {
+        disabledLogger.debug("Sending message in session {} from user {}: {}", "s-10452", telegramUserId, description);
+    }
+
+    private Encoder<ILoggingEvent> jsonEncoder() {
+        JsonLogEncoder encoder = new JsonLogEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        return encoder;
+    }
+
+    private OutputStreamAppender<ILoggingEvent> appender(String name, Encoder<ILoggingEvent> encoder) {
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setName(name);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    private Logger logger(String name, Level level, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger(name);
+        logger.setLevel(level);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+}
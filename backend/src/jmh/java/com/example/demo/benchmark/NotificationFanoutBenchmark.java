@@ -0,0 +1,132 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Executor;
+import com.example.demo.entity.Order;
+import com.example.demo.repository.ExecutorRepository;
+import com.example.demo.service.ExecutorCategoryIndex;
+import com.example.demo.service.OrderNotificationFanout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Подготовка рассылки о новом заказе: выбор получателей и сборка текста.
+ * <p>
+ * legacyDedup - прежний путь notifyExecutorsAboutNewOrder: анкеты категории из БД, dedup через
+ * Collectors.toMap по telegramUserId и сборка текста на каждого получателя.
+ * indexLookup - текущий путь: получатели из ExecutorCategoryIndex, текст собирается один раз.
+ * Анкеты лежат в памяти (ExecutorRepository заменен заглушкой), каждый пятый исполнитель
+ * зарегистрирован в категории дважды.
+ * Запуск: ./gradlew jmh -Pjmh.includes=NotificationFanoutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationFanoutBenchmark {
+    private static final String CATEGORY = "Математика";
+
+    @Param({"100", "5000"})
+    public int executors;
+
+    private Order order;
+    private List<Executor> categoryExecutors;
+    private ExecutorCategoryIndex index;
+
+    @Setup
+    public void setUp() {
+        order = new Order();
+        order.setId(10452L);
+        order.setTelegramUserId(731245678L);
+        order.setUniversity("МГУ им. М. В. Ломоносова");
+        order.setSubject("Линейная алгебра");
+        order.setCategory(CATEGORY);
+        order.setDescription("Контрольная работа: 6 задач на собственные значения и жорданову форму, срок - 3 дня");
+        order.setPrice("2500");
+
+        categoryExecutors = new ArrayList<>();
+        List<ExecutorRepository.CategorySubscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < executors; i++) {
+            long telegramUserId = 5_000_000_000L + (i % 5 == 4 ? i - 1 : i);
+            Executor executor = new Executor();
+            executor.setId((long) i);
+            executor.setTelegramUserId(telegramUserId);
+            executor.setName("Исполнитель " + i);
+            executor.setCategory(CATEGORY);
+            categoryExecutors.add(executor);
+            subscriptions.add(subscription(CATEGORY, telegramUserId));
+        }
+
+        index = new ExecutorCategoryIndex(repository(subscriptions));
+        index.reload();
+    }
+
+    @Benchmark
+    public void legacyDedup(Blackhole blackhole) {
+        Map<Long, Executor> uniqueExecutors = categoryExecutors.stream()
+                .collect(Collectors.toMap(Executor::getTelegramUserId, Function.identity(),
+                        (existing, replacement) -> existing));
+        for (Executor executor : uniqueExecutors.values()) {
+            blackhole.consume(executor.getTelegramUserId());
+            blackhole.consume(OrderNotificationFanout.notificationText(order));
+        }
+    }
+
+    @Benchmark
+    public void indexLookup(Blackhole blackhole) {
+        String text = OrderNotificationFanout.notificationText(order);
+        for (Long telegramUserId : index.getSubscribers(CATEGORY)) {
+            blackhole.consume(telegramUserId);
+            blackhole.consume(text);
+        }
+    }
+
+    @Benchmark
+    public String notificationText() {
+        return OrderNotificationFanout.notificationText(order);
+    }
+
+    private static ExecutorRepository.CategorySubscription subscription(String category, Long telegramUserId) {
+        return new ExecutorRepository.CategorySubscription() {
+            @Override
+            public String getCategory() {
+                return category;
+            }
+
+            @Override
+            public Long getTelegramUserId() {
+                return telegramUserId;
+            }
+        };
+    }
+
+    // Заглушка репозитория: индекс при загрузке вызывает только findAllProjectedBy
+    private static ExecutorRepository repository(List<ExecutorRepository.CategorySubscription> subscriptions) {
+        return (ExecutorRepository) Proxy.newProxyInstance(ExecutorRepository.class.getClassLoader(),
+                new Class<?>[]{ExecutorRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAllProjectedBy")) {
+                        return subscriptions;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.CompactRedisSerializer;
+import com.example.demo.config.RedisConfig;
+import com.example.demo.entity.ChatSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.RedisCustomConversions;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение форматов хранения в Redis: ns/op на запись + чтение, размеры (bytes/op) печатаются при старте.
+ * <p>
+ * sessionId* - значение user:current:session:* / элемент user:active:sessions:* через RedisTemplate,
+ * chatSession* - hash ChatSession через MappingRedisConverter с конвертерами по умолчанию и из RedisConfig,
+ * chatSessionJdk и chatSessionJson - тот же объект целиком одним значением (JDK-сериализация и Jackson) для сравнения.
+ * Запуск: ./gradlew jmh -Pjmh.includes=RedisCodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+    private final RedisSerializer<Object> jdk = new JdkSerializationRedisSerializer();
+    private final RedisSerializer<Object> compact = new CompactRedisSerializer();
+    private final ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private MappingRedisConverter defaultConverter;
+    private MappingRedisConverter compactConverter;
+
+    private String sessionId;
+    private byte[] sessionIdJdk;
+    private byte[] sessionIdCompact;
+    private ChatSession session;
+
+    @Setup
+    public void setUp() throws Exception {
+        defaultConverter = converter(new RedisCustomConversions());
+        // Конвертеры режима записи compact (app.redis.serializer=compact)
+        RedisConfig config = new RedisConfig();
+        Field serializer = RedisConfig.class.getDeclaredField("serializer");
+        serializer.setAccessible(true);
+        serializer.set(config, "compact");
+        compactConverter = converter(config.redisCustomConversions());
+
+        sessionId = "session_1718000000000_4821";
+        sessionIdJdk = jdk.serialize(sessionId);
+        sessionIdCompact = compact.serialize(sessionId);
+
+        session = new ChatSession();
+        session.setSessionId(sessionId);
+        session.setUser1Id(731245678L);
+        session.setUser2Id(5512340987L);
+        session.setOrderId(10452L);
+        session.setUser1TempId("Заказчик_7421");
+        session.setUser2TempId("Исполнитель_1187");
+        session.setPaid(true);
+        session.setCompletionApprovals(Set.of(731245678L));
+
+        System.out.printf("bytes/op: sessionId jdk=%d compact=%d; ChatSession hash default=%d compact=%d, jdk object=%d, json=%d%n",
+                sessionIdJdk.length, sessionIdCompact.length,
+                hashSize(defaultConverter), hashSize(compactConverter), jdk.serialize(session).length,
+                json.writeValueAsBytes(session).length);
+    }
+
+    @Benchmark
+    public Object sessionIdJdkRoundTrip() {
+        jdk.serialize(sessionId);
+        return jdk.deserialize(sessionIdJdk);
+    }
+
+    @Benchmark
+    public Object sessionIdCompactRoundTrip() {
+        compact.serialize(sessionId);
+        return compact.deserialize(sessionIdCompact);
+    }
+
+    @Benchmark
+    public Object chatSessionDefaultHash() {
+        return writeAndRead(defaultConverter);
+    }
+
+    @Benchmark
+    public Object chatSessionCompactHash() {
+        return writeAndRead(compactConverter);
+    }
+
+    @Benchmark
+    public Object chatSessionJdk() {
+        return jdk.deserialize(jdk.serialize(session));
+    }
+
+    @Benchmark
+    public Object chatSessionJson() throws Exception {
+        return json.readValue(json.writeValueAsBytes(session), ChatSession.class);
+    }
+
+    private Object writeAndRead(MappingRedisConverter converter) {
+        RedisData data = new RedisData();
+        converter.write(session, data);
+        return converter.read(ChatSession.class, data);
+    }
+
+    // Имена и значения полей hash'а, как они лежат в Redis
+    private int hashSize(MappingRedisConverter converter) {
+        RedisData data = new RedisData();
+        converter.write(session, data);
+        int size = 0;
+        for (Map.Entry<String, byte[]> field : data.getBucket().entrySet()) {
+            size += field.getKey().getBytes(StandardCharsets.UTF_8).length + field.getValue().length;
+        }
+        return size;
+    }
+
+    private static MappingRedisConverter converter(RedisCustomConversions conversions) {
+        MappingRedisConverter converter = new MappingRedisConverter(new RedisMappingContext());
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
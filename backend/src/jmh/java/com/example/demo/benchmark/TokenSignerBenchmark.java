@@ -0,0 +1,113 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.TinkoffTokenSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подпись запроса Init и проверка подписи уведомления Тинькофф (TinkoffTokenSigner).
+ * <p>
+ * Поля - как в реальном Init: скалярные участвуют в подписи, Receipt и DATA отбрасываются.
+ * legacySign - прежняя реализация (TreeMap, конкатенация, String.format на каждый байт) без ее логов.
+ * Запуск: ./gradlew jmh -Pjmh.includes=TokenSignerBenchmark (с -prof gc - байты на операцию)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenSignerBenchmark {
+    private static final String PASSWORD = "usaf8fw8fsw21g";
+
+    private TinkoffTokenSigner signer;
+    private Map<String, Object> initFields;
+    private Map<String, Object> notificationFields;
+    private String notificationToken;
+
+    @Setup
+    public void setUp() throws Exception {
+        signer = new TinkoffTokenSigner();
+        Field password = TinkoffTokenSigner.class.getDeclaredField("terminalPassword");
+        password.setAccessible(true);
+        password.set(signer, PASSWORD);
+        signer.init();
+
+        initFields = new LinkedHashMap<>();
+        initFields.put("TerminalKey", "1718000000000DEMO");
+        initFields.put("Amount", 150000L);
+        initFields.put("OrderId", "10452-1718000000000");
+        initFields.put("Description", "Оплата заказа №10452");
+        initFields.put("SuccessURL", "https://t.me/studentsbotmainbot/student?startapp=payment_success");
+        initFields.put("NotificationURL", "https://bot.example.com/api/payment/payment-status");
+        initFields.put("DATA", Map.of("userIdFrom", "731245678", "userIdTo", "5512340987"));
+        initFields.put("Receipt", Map.of("Email", "client@example.com", "Items", List.of()));
+
+        notificationFields = new LinkedHashMap<>();
+        notificationFields.put("TerminalKey", "1718000000000DEMO");
+        notificationFields.put("OrderId", "10452-1718000000000");
+        notificationFields.put("Success", true);
+        notificationFields.put("Status", "CONFIRMED");
+        notificationFields.put("PaymentId", 3093639567L);
+        notificationFields.put("ErrorCode", "0");
+        notificationFields.put("Amount", 150000L);
+        notificationFields.put("CardId", 322264L);
+        notificationFields.put("Pan", "430000******0777");
+        notificationFields.put("ExpDate", "1122");
+        notificationToken = signer.sign(notificationFields);
+    }
+
+    @Benchmark
+    public String signInit() throws Exception {
+        return signer.sign(initFields);
+    }
+
+    @Benchmark
+    public boolean verifyNotification() throws Exception {
+        return signer.verify(notificationFields, notificationToken);
+    }
+
+    @Benchmark
+    public String legacySign() throws Exception {
+        Map<String, String> sorted = new TreeMap<>();
+        for (Map.Entry<String, ?> field : initFields.entrySet()) {
+            Object value = field.getValue();
+            if (value instanceof Map || value instanceof Collection) {
+                continue;
+            }
+            sorted.put(field.getKey(), String.valueOf(value));
+        }
+        sorted.put("Password", PASSWORD);
+
+        StringBuilder concatenated = new StringBuilder();
+        for (String value : sorted.values()) {
+            concatenated.append(value);
+        }
+        byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(concatenated.toString().getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            hexString.append(String.format("%02x", b));
+        }
+        return hexString.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.BoundedExecutor;
+import com.example.demo.config.ThreadingConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка обработки одного обновления Telegram при всплеске нагрузки.
+ * <p>
+ * 64 потока JMH одновременно отдают "обновления" в исполнитель, каждое обновление
+ * блокируется так же, как processUpdate: чтение Redis, запрос в Postgres и HTTP-вызов.
+ * SampleTime выводит перцентили (p0.99), сравниваются фиксированный пул и виртуальные потоки.
+ * Режим virtual требует запуска на Java 21: ./gradlew jmh -PjavaVersion=21
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class UpdateExecutorBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"1"})
+    public int redisMillis;
+
+    @Param({"3"})
+    public int postgresMillis;
+
+    @Param({"20"})
+    public int httpMillis;
+
+    private BoundedExecutor executor;
+
+    @Setup
+    public void setUp() {
+        executor = ThreadingConfig.createExecutor(mode, "bench-update-", 8, 256);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void processUpdate() throws Exception {
+        CompletableFuture.runAsync(this::simulateHandler, executor).get();
+    }
+
+    private void simulateHandler() {
+        try {
+            Thread.sleep(redisMillis);
+            Thread.sleep(postgresMillis);
+            Thread.sleep(httpMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
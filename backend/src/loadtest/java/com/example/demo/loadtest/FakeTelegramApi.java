@@ -0,0 +1,263 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Стенд Telegram Bot API для нагрузочного прогона.
+ * <p>
+ * sendMessage и editMessageText проходят через лимиты как у Telegram (глобальный и на чат); сверх лимита -
+ * 429 с parameters.retry_after. getUpdates отдает обновления, поставленные сценарием (режим polling),
+ * с long polling. Сценарий ждет ответов бота через expect: по маркеру в тексте (пересылка в чат)
+ * или по первому подходящему сообщению в чат пользователя (ответ на команду).
+ */
+public class FakeTelegramApi implements AutoCloseable {
+    private static final Pattern MARKER = Pattern.compile("lt-\\d+");
+    private static final String BROADCAST_PREFIX = "🎯";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newFixedThreadPool(32);
+    private final RateLimiter globalLimiter;
+    private final double chatRate;
+    private final double chatBurst;
+    private final Map<Long, RateLimiter> chatLimiters = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<Long>> markerWaiters = new ConcurrentHashMap<>();
+    private final Map<Long, Queue<Waiter>> chatWaiters = new ConcurrentHashMap<>();
+
+    private final List<String> updates = new ArrayList<>();
+    private long nextUpdateId = 1;
+
+    private final AtomicLong messageIds = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong broadcasts = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    public FakeTelegramApi(int port, double globalRate, double globalBurst, double chatRate, double chatBurst)
+            throws IOException {
+        this.globalLimiter = new RateLimiter(globalRate, globalBurst);
+        this.chatRate = chatRate;
+        this.chatBurst = chatBurst;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    public String getApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getBroadcasts() {
+        return broadcasts.get();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.get();
+    }
+
+    /**
+     * Обновление для бота в режиме polling; update_id проставляется здесь.
+     */
+    public synchronized void enqueueUpdate(ObjectNode update) {
+        update.put("update_id", nextUpdateId++);
+        updates.add(update.toString());
+        notifyAll();
+    }
+
+    /**
+     * Завершается временем System.nanoTime() прихода сообщения, содержащего маркер, в любой чат.
+     */
+    public CompletableFuture<Long> expectMarker(String marker) {
+        return markerWaiters.computeIfAbsent(marker, m -> new CompletableFuture<>());
+    }
+
+    /**
+     * Завершается приходом в чат первого сообщения, подходящего под условие (рассылки о заказах не учитываются).
+     */
+    public CompletableFuture<Long> expect(long chatId, Predicate<String> condition) {
+        Waiter waiter = new Waiter(condition, new CompletableFuture<>());
+        chatWaiters.computeIfAbsent(chatId, id -> new ConcurrentLinkedQueue<>()).add(waiter);
+        return waiter.future;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = path.substring(path.lastIndexOf('/') + 1);
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            JsonNode request = body.length > 0 ? objectMapper.readTree(body) : objectMapper.createObjectNode();
+
+            switch (method) {
+                case "sendMessage", "editMessageText" -> sendMessage(exchange, request);
+                case "getUpdates" -> getUpdates(exchange, request);
+                case "getMe" -> respond(exchange, 200, ok(objectMapper.createObjectNode()
+                        .put("id", 1).put("is_bot", true).put("first_name", "loadtest").put("username", "loadtest_bot")));
+                default -> respond(exchange, 200, "{\"ok\":true,\"result\":true}");
+            }
+        } catch (Exception e) {
+            respond(exchange, 500, "{\"ok\":false,\"error_code\":500,\"description\":\"internal error\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendMessage(HttpExchange exchange, JsonNode request) throws IOException {
+        long chatId = request.path("chat_id").asLong();
+        long retryAfter = Math.max(globalLimiter.tryAcquire(),
+                chatLimiters.computeIfAbsent(chatId, id -> new RateLimiter(chatRate, chatBurst)).tryAcquire());
+        if (retryAfter > 0) {
+            rateLimited.incrementAndGet();
+            respond(exchange, 429, "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests: retry after "
+                    + retryAfter + "\",\"parameters\":{\"retry_after\":" + retryAfter + "}}");
+            return;
+        }
+
+        long arrivedAt = System.nanoTime();
+        String text = request.path("text").asText("");
+        sent.incrementAndGet();
+        deliver(chatId, text, arrivedAt);
+
+        ObjectNode message = objectMapper.createObjectNode()
+                .put("message_id", messageIds.incrementAndGet())
+                .put("date", System.currentTimeMillis() / 1000)
+                .put("text", text);
+        message.putObject("chat").put("id", chatId).put("type", "private");
+        respond(exchange, 200, ok(message));
+    }
+
+    private void deliver(long chatId, String text, long arrivedAt) {
+        Matcher marker = MARKER.matcher(text);
+        if (marker.find()) {
+            CompletableFuture<Long> waiter = markerWaiters.remove(marker.group());
+            if (waiter != null) {
+                waiter.complete(arrivedAt);
+                return;
+            }
+        }
+        if (text.startsWith(BROADCAST_PREFIX)) {
+            broadcasts.incrementAndGet();
+            return;
+        }
+
+        Queue<Waiter> waiters = chatWaiters.get(chatId);
+        if (waiters == null) {
+            return;
+        }
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            if (waiter.future.isDone()) {
+                it.remove();
+            } else if (waiter.condition.test(text)) {
+                it.remove();
+                waiter.future.complete(arrivedAt);
+                return;
+            }
+        }
+    }
+
+    private void getUpdates(HttpExchange exchange, JsonNode request) throws IOException, InterruptedException {
+        long offset = request.path("offset").asLong(0);
+        int limit = request.path("limit").asInt(100);
+        // Long polling, но не дольше 5 с, чтобы остановка стенда не ждала таймаут бота
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.min(request.path("timeout").asInt(0), 5));
+
+        List<String> batch = new ArrayList<>();
+        synchronized (this) {
+            while (true) {
+                // Подтвержденные ботом обновления (update_id < offset) больше не отдаются
+                long firstId = nextUpdateId - updates.size();
+                if (offset > firstId) {
+                    updates.subList(0, (int) Math.min(offset - firstId, updates.size())).clear();
+                }
+                if (!updates.isEmpty()) {
+                    batch.addAll(updates.subList(0, Math.min(limit, updates.size())));
+                    break;
+                }
+                long waitNanos = deadline - System.nanoTime();
+                if (waitNanos <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            }
+        }
+        respond(exchange, 200, "{\"ok\":true,\"result\":[" + String.join(",", batch) + "]}");
+    }
+
+    private String ok(JsonNode result) {
+        ObjectNode response = objectMapper.createObjectNode().put("ok", true);
+        response.set("result", result);
+        return response.toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private record Waiter(Predicate<String> condition, CompletableFuture<Long> future) {
+    }
+
+    // Token bucket: 0 - запрос разрешен, иначе через сколько секунд повторить (retry_after)
+    private static final class RateLimiter {
+        private final double ratePerNano;
+        private final double burst;
+        private double tokens;
+        private long updatedAt = System.nanoTime();
+
+        private RateLimiter(double ratePerSecond, double burst) {
+            this.ratePerNano = ratePerSecond / 1e9;
+            this.burst = burst;
+            this.tokens = burst;
+        }
+
+        private synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - updatedAt) * ratePerNano);
+            updatedAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerNano / 1e9));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Стенд эквайринга Тинькофф: POST /v2/Init с проверкой Token и задержкой ответа как у настоящего API.
+ * После успешного Init через notifyDelayMs отправляет приложению подписанное уведомление CONFIRMED
+ * (как Тинькофф на NotificationURL) и записывает задержку его обработки.
+ */
+public class FakeTinkoffApi implements AutoCloseable {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newFixedThreadPool(16);
+    private final ScheduledExecutorService notifier = Executors.newSingleThreadScheduledExecutor();
+    private final HttpClient httpClient;
+    private final LatencyStats stats;
+
+    private final String password;
+    private final long latencyMs;
+    private final String notificationUrl;
+    private final long notifyDelayMs;
+
+    private final AtomicLong paymentIds = new AtomicLong(3_000_000_000L);
+
+    public FakeTinkoffApi(int port, String password, long latencyMs, String notificationUrl, long notifyDelayMs,
+                          HttpClient httpClient, LatencyStats stats) throws IOException {
+        this.password = password;
+        this.latencyMs = latencyMs;
+        this.notificationUrl = notificationUrl;
+        this.notifyDelayMs = notifyDelayMs;
+        this.httpClient = httpClient;
+        this.stats = stats;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/v2/Init", this::init);
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    public String getApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v2";
+    }
+
+    private void init(HttpExchange exchange) throws IOException {
+        try {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+
+            ObjectNode response = objectMapper.createObjectNode();
+            if (!sign(request).equals(request.path("Token").asText())) {
+                stats.increment("tinkoff init: invalid token");
+                response.put("Success", false).put("ErrorCode", "204").put("Message", "Неверный токен");
+                respond(exchange, response);
+                return;
+            }
+
+            String paymentId = Long.toString(paymentIds.incrementAndGet());
+            response.put("Success", true)
+                    .put("ErrorCode", "0")
+                    .put("TerminalKey", request.path("TerminalKey").asText())
+                    .put("Status", "NEW")
+                    .put("PaymentId", paymentId)
+                    .put("OrderId", request.path("OrderId").asText())
+                    .put("Amount", request.path("Amount").asLong())
+                    .put("PaymentURL", "https://securepay.example/new/" + paymentId);
+            respond(exchange, response);
+            stats.increment("tinkoff init: ok");
+
+            notifier.schedule(() -> notifyConfirmed(request, paymentId), notifyDelayMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void notifyConfirmed(JsonNode init, String paymentId) {
+        ObjectNode notification = objectMapper.createObjectNode()
+                .put("TerminalKey", init.path("TerminalKey").asText())
+                .put("OrderId", init.path("OrderId").asText())
+                .put("Success", true)
+                .put("Status", "CONFIRMED")
+                .put("PaymentId", paymentId)
+                .put("ErrorCode", "0")
+                .put("Amount", init.path("Amount").asLong())
+                .put("Pan", "430000******0777");
+        try {
+            notification.put("Token", sign(notification));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(notificationUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(notification.toString()))
+                .build();
+        long startedAt = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, e) -> stats.record("HTTP POST /api/payment/payment-status",
+                        System.nanoTime() - startedAt, e == null && response.statusCode() == 200));
+    }
+
+    // Подпись Тинькофф: значения корневых скалярных полей и Password, отсортированные по имени поля
+    private String sign(JsonNode fields) throws NoSuchAlgorithmException {
+        Map<String, String> sorted = new TreeMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = fields.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (!"Token".equals(field.getKey()) && field.getValue().isValueNode() && !field.getValue().isNull()) {
+                sorted.put(field.getKey(), field.getValue().asText());
+            }
+        }
+        sorted.put("Password", password);
+
+        byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(String.join("", sorted.values()).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash);
+    }
+
+    private void respond(HttpExchange exchange, JsonNode json) throws IOException {
+        byte[] response = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+        notifier.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Задержки и ошибки по операциям прогона (HTTP-эндпоинты, команды бота, сквозные сценарии).
+ * Отчет - пропускная способность и перцентили по каждой операции.
+ */
+public class LatencyStats {
+    private final Map<String, Series> series = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public void record(String operation, long nanos, boolean ok) {
+        series.computeIfAbsent(operation, o -> new Series()).add(nanos, ok);
+    }
+
+    public void increment(String counter) {
+        counters.computeIfAbsent(counter, c -> new AtomicLong()).incrementAndGet();
+    }
+
+    public long get(String counter) {
+        AtomicLong value = counters.get(counter);
+        return value != null ? value.get() : 0;
+    }
+
+    public String report(double wallSeconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-44s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        series.forEach((operation, s) -> {
+            long[] sorted = s.snapshot();
+            out.append(String.format("%-44s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    operation, sorted.length, s.errors.get(), sorted.length / wallSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0));
+        });
+        if (!counters.isEmpty()) {
+            out.append(System.lineSeparator());
+            new ConcurrentSkipListMap<>(counters).forEach((counter, value) ->
+                    out.append(String.format("%-44s %8d%n", counter, value.get())));
+        }
+        return out.toString();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static final class Series {
+        private long[] samples = new long[1024];
+        private int size;
+        private final AtomicLong errors = new AtomicLong();
+
+        private synchronized void add(long nanos, boolean ok) {
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        private synchronized long[] snapshot() {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сценарный нагрузочный прогон против запущенного приложения.
+ * <p>
+ * Поднимает стенды Bot API и Тинькофф, ждет готовности приложения (профиль loadtest направляет его на стенды),
+ * регистрирует исполнителей и прогоняет заказчиков: заказ, одновременные отклики нескольких исполнителей
+ * (ровно один должен получить 200), переписка через бота, /status, /pay с уведомлением об оплате,
+ * закрытие чата. В конце печатает пропускную способность и перцентили по эндпоинтам и командам бота.
+ * <p>
+ * Запуск: сначала ./gradlew loadTest --args="--customers=2000", затем приложение с
+ * --spring.profiles.active=loadtest. Параметры - в {@link #main}.
+ */
+public class LoadTestDriver {
+    private static final long CUSTOMER_BASE = 7_000_000_000L;
+    private static final long EXECUTOR_BASE = 8_000_000_000L;
+
+    private final Map<String, String> options;
+    private final String appUrl;
+    private final String botMode;
+    private final String webhookSecret;
+    private final int customers;
+    private final int executors;
+    private final int categories;
+    private final int acceptBurst;
+    private final int messages;
+    private final long replyTimeoutMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final LatencyStats stats = new LatencyStats();
+    private final AtomicLong markers = new AtomicLong();
+    private final AtomicInteger completedFlows = new AtomicInteger();
+    private final ExecutorService burstPool = Executors.newCachedThreadPool();
+    private final Map<String, List<Long>> executorsByCategory = new HashMap<>();
+
+    private FakeTelegramApi telegram;
+
+    public LoadTestDriver(Map<String, String> options) {
+        this.options = options;
+        this.appUrl = option("app-url", "http://127.0.0.1:80");
+        this.botMode = option("bot-mode", "webhook");
+        this.webhookSecret = option("webhook-secret", "loadtest");
+        this.customers = Integer.parseInt(option("customers", "500"));
+        this.executors = Integer.parseInt(option("executors", "50"));
+        this.categories = Integer.parseInt(option("categories", "5"));
+        this.acceptBurst = Integer.parseInt(option("accept-burst", "5"));
+        this.messages = Integer.parseInt(option("messages", "4"));
+        this.replyTimeoutMs = Long.parseLong(option("reply-timeout-ms", "30000"));
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(16))
+                .build();
+    }
+
+    /**
+     * Параметры (--name=value):
+     * app-url, bot-mode (webhook | polling), webhook-secret, customers, executors, categories,
+     * concurrency (одновременных заказчиков), accept-burst (исполнителей на один отклик), messages (сообщений в чате),
+     * reply-timeout-ms, startup-timeout-s, telegram-port, telegram-global-rate, telegram-global-burst,
+     * telegram-chat-rate, telegram-chat-burst, tinkoff-port, tinkoff-password, tinkoff-latency-ms, tinkoff-notify-delay-ms.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        new LoadTestDriver(options).run();
+    }
+
+    public void run() throws Exception {
+        try (FakeTelegramApi fakeTelegram = new FakeTelegramApi(
+                Integer.parseInt(option("telegram-port", "18081")),
+                Double.parseDouble(option("telegram-global-rate", "30")),
+                Double.parseDouble(option("telegram-global-burst", "30")),
+                Double.parseDouble(option("telegram-chat-rate", "1")),
+                Double.parseDouble(option("telegram-chat-burst", "3")));
+             FakeTinkoffApi tinkoff = new FakeTinkoffApi(
+                     Integer.parseInt(option("tinkoff-port", "18082")),
+                     option("tinkoff-password", "loadtest"),
+                     Long.parseLong(option("tinkoff-latency-ms", "150")),
+                     appUrl + "/api/payment/payment-status",
+                     Long.parseLong(option("tinkoff-notify-delay-ms", "500")),
+                     httpClient, stats)) {
+            telegram = fakeTelegram;
+            System.out.println("Fake Bot API: " + telegram.getApiUrl() + ", fake Tinkoff: " + tinkoff.getApiUrl());
+            awaitApplication(Long.parseLong(option("startup-timeout-s", "300")));
+
+            registerExecutors();
+
+            int concurrency = Integer.parseInt(option("concurrency", "50"));
+            ExecutorService flows = Executors.newFixedThreadPool(concurrency);
+            long startedAt = System.nanoTime();
+            List<CompletableFuture<Void>> runs = new ArrayList<>();
+            for (int i = 0; i < customers; i++) {
+                int index = i;
+                runs.add(CompletableFuture.runAsync(() -> runCustomer(index), flows));
+            }
+            CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).join();
+            double wallSeconds = (System.nanoTime() - startedAt) / 1e9;
+            flows.shutdown();
+
+            // Уведомления об оплате приходят с задержкой после последних /pay
+            Thread.sleep(Long.parseLong(option("tinkoff-notify-delay-ms", "500")) + 2000);
+
+            System.out.printf("%nCustomers: %d (%d completed), executors: %d, wall time: %.1f s, bot mode: %s%n%n",
+                    customers, completedFlows.get(), executors, wallSeconds, botMode);
+            System.out.print(stats.report(wallSeconds));
+            System.out.printf("%nFake Bot API: %d messages delivered (%d order broadcasts), %d answered with 429%n",
+                    telegram.getSent(), telegram.getBroadcasts(), telegram.getRateLimited());
+        } finally {
+            burstPool.shutdownNow();
+        }
+    }
+
+    private void runCustomer(int index) {
+        long customer = CUSTOMER_BASE + index;
+        String category = category(index);
+        try {
+            JsonNode order = send("POST /api/orders/request", "POST", "/api/orders/request", objectMapper.createObjectNode()
+                    .put("telegramUserId", customer)
+                    .put("telegramUsername", "lt_customer_" + index)
+                    .put("university", "Университет " + (index % 20))
+                    .put("subject", "Предмет " + (index % 50))
+                    .put("category", category)
+                    .put("description", "Нагрузочный заказ №" + index)
+                    .put("price", Integer.toString(500 + index % 20 * 100)));
+            if (order == null) {
+                return;
+            }
+            long orderId = order.path("id").asLong();
+
+            List<Long> racers = pickExecutors(category);
+            send("GET /api/orders/active/category/{c}/{u}", "GET",
+                    "/api/orders/active/category/" + category + "/" + racers.get(0) + "?page=0&size=20", null);
+
+            CompletableFuture<Long> accepted = telegram.expect(customer, text -> text.contains("заказ принят"));
+            long acceptStartedAt = System.nanoTime();
+            Long executor = acceptRace(orderId, racers);
+            if (executor == null) {
+                return;
+            }
+            // Уведомление приходит через outbox после commit
+            if (await(accepted, "FLOW accept -> customer notified", acceptStartedAt) == null) {
+                return;
+            }
+
+            for (int i = 0; i < messages; i++) {
+                String marker = "lt-" + markers.incrementAndGet();
+                bot(i % 2 == 0 ? customer : executor, "Сообщение " + marker, "BOT text (relay)",
+                        telegram.expectMarker(marker));
+            }
+            bot(customer, "/status", "BOT /status", reply(customer));
+            bot(customer, "/sessions", "BOT /sessions", reply(customer));
+            bot(customer, "/pay", "BOT /pay", telegram.expect(customer, text -> !text.isEmpty()));
+            bot(customer, "/close_chat", "BOT /close_chat", reply(customer));
+            bot(executor, "/approve_close", "BOT /approve_close", reply(executor));
+
+            send("GET /api/orders/user/{u}/page", "GET", "/api/orders/user/" + customer + "/page?size=20", null);
+            completedFlows.incrementAndGet();
+        } catch (Exception e) {
+            stats.increment("flow failed: " + e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Несколько исполнителей одновременно откликаются на заказ; ровно один должен получить 200, остальные 409.
+     *
+     * @return исполнитель-победитель или null
+     */
+    private Long acceptRace(long orderId, List<Long> racers) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Integer>> attempts = new ArrayList<>();
+        for (Long executor : racers) {
+            attempts.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(
+                                    appUrl + "/api/orders/" + orderId + "/accept?executorId=" + executor))
+                            .timeout(Duration.ofSeconds(30))
+                            .PUT(HttpRequest.BodyPublishers.noBody())
+                            .build();
+                    long startedAt = System.nanoTime();
+                    int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    stats.record("HTTP PUT /api/orders/{id}/accept", System.nanoTime() - startedAt,
+                            status == 200 || status == 409);
+                    return status;
+                } catch (Exception e) {
+                    stats.record("HTTP PUT /api/orders/{id}/accept", 0, false);
+                    return -1;
+                }
+            }, burstPool));
+        }
+        start.countDown();
+
+        Long winner = null;
+        int wins = 0;
+        for (int i = 0; i < racers.size(); i++) {
+            int status = attempts.get(i).join();
+            if (status == 200) {
+                wins++;
+                winner = racers.get(i);
+            } else if (status == 409) {
+                stats.increment("accept: 409 conflict");
+            }
+        }
+        if (wins != 1) {
+            stats.increment("accept: race violations (winners != 1)");
+        }
+        return winner;
+    }
+
+    private void bot(long userId, String text, String operation, CompletableFuture<Long> reply) throws Exception {
+        ObjectNode update = objectMapper.createObjectNode();
+        ObjectNode message = update.putObject("message");
+        message.put("message_id", markers.incrementAndGet());
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.put("text", text);
+        message.putObject("chat").put("id", userId).put("type", "private");
+        message.putObject("from").put("id", userId).put("is_bot", false).put("first_name", "lt" + userId);
+
+        long startedAt = System.nanoTime();
+        if ("polling".equals(botMode)) {
+            telegram.enqueueUpdate(update);
+        } else {
+            // update_id уникален в рамках прогона: повтор отсекается дедупликацией вебхука
+            update.put("update_id", markers.incrementAndGet());
+            HttpRequest request = HttpRequest.newBuilder(URI.create(appUrl + "/telegram/webhook"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .header("X-Telegram-Bot-Api-Secret-Token", webhookSecret)
+                    .POST(HttpRequest.BodyPublishers.ofString(update.toString()))
+                    .build();
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            stats.record("HTTP POST /telegram/webhook", System.nanoTime() - startedAt, status == 200);
+        }
+        await(reply, operation, startedAt);
+    }
+
+    // Ответ бота пользователю (не рассылка о заказах)
+    private CompletableFuture<Long> reply(long userId) {
+        return telegram.expect(userId, text -> true);
+    }
+
+    private Long await(CompletableFuture<Long> reply, String operation, long startedAt) {
+        try {
+            Long arrivedAt = reply.get(replyTimeoutMs, TimeUnit.MILLISECONDS);
+            stats.record(operation, arrivedAt - startedAt, true);
+            return arrivedAt;
+        } catch (Exception e) {
+            reply.cancel(false);
+            stats.record(operation, TimeUnit.MILLISECONDS.toNanos(replyTimeoutMs), false);
+            return null;
+        }
+    }
+
+    private JsonNode send(String operation, String method, String path, JsonNode body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(appUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        builder.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body.toString()));
+
+        long startedAt = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            boolean ok = response.statusCode() / 100 == 2;
+            stats.record(operation, System.nanoTime() - startedAt, ok);
+            return ok && !response.body().isEmpty() ? objectMapper.readTree(response.body()) : null;
+        } catch (Exception e) {
+            stats.record(operation, System.nanoTime() - startedAt, false);
+            return null;
+        }
+    }
+
+    private void registerExecutors() {
+        for (int i = 0; i < executors; i++) {
+            long executor = EXECUTOR_BASE + i;
+            String category = category(i);
+            executorsByCategory.computeIfAbsent(category, c -> new ArrayList<>()).add(executor);
+            // Повторный прогон на той же БД получит ошибку уникальности анкеты - исполнитель уже есть
+            send("POST /api/executors", "POST", "/api/executors", objectMapper.createObjectNode()
+                    .put("telegramUserId", executor)
+                    .put("telegramUsername", "lt_executor_" + i)
+                    .put("name", "Исполнитель " + i)
+                    .put("category", category)
+                    .put("description", "Нагрузочный исполнитель")
+                    .put("price", "1000")
+                    .put("experience", "3 года")
+                    .put("contacts", "@lt_executor_" + i));
+        }
+    }
+
+    private List<Long> pickExecutors(String category) {
+        List<Long> pool = new ArrayList<>(executorsByCategory.getOrDefault(category, List.of()));
+        if (pool.isEmpty()) {
+            throw new IllegalStateException("No executors in category " + category);
+        }
+        Collections.shuffle(pool, ThreadLocalRandom.current());
+        return pool.subList(0, Math.min(acceptBurst, pool.size()));
+    }
+
+    private void awaitApplication(long timeoutSeconds) throws InterruptedException {
+        System.out.println("Waiting for " + appUrl + "/actuator/health (start the app with --spring.profiles.active=loadtest)");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(appUrl + "/actuator/health"))
+                        .timeout(Duration.ofSeconds(2)).GET().build();
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (Exception e) {
+                // Приложение еще стартует
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("Application at " + appUrl + " did not become healthy in " + timeoutSeconds + " s");
+    }
+
+    private String category(int index) {
+        return "loadtest-" + (index % categories);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+}
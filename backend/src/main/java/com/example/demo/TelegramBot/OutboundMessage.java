@@ -0,0 +1,45 @@
+package com.example.demo.TelegramBot;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+import java.util.UUID;
+
+/**
+ * Исходящее сообщение в виде, который можно сохранить в Redis и отправить повторно.
+ */
+@Data
+@NoArgsConstructor
+public class OutboundMessage {
+    private String id = UUID.randomUUID().toString();
+    private Long chatId;
+    // "text" или тип файла: photo, document, voice, video, audio
+    private String type;
+    private String text;
+    private String fileId;
+    private String caption;
+    private InlineKeyboardMarkup replyMarkup;
+    private SendPriority priority = SendPriority.TRANSACTIONAL;
+    private int attempt;
+    private String lastError;
+
+    public static OutboundMessage text(Long chatId, String text, SendPriority priority) {
+        OutboundMessage message = new OutboundMessage();
+        message.setChatId(chatId);
+        message.setType("text");
+        message.setText(text);
+        message.setPriority(priority);
+        return message;
+    }
+
+    public static OutboundMessage file(Long chatId, String fileId, String fileType, String caption) {
+        OutboundMessage message = new OutboundMessage();
+        message.setChatId(chatId);
+        message.setType(fileType);
+        message.setFileId(fileId);
+        message.setCaption(caption);
+        message.setPriority(SendPriority.CHAT_RELAY);
+        return message;
+    }
+}
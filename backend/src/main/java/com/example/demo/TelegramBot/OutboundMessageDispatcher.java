@@ -0,0 +1,232 @@
+package com.example.demo.TelegramBot;
+
+import com.example.demo.config.KeyedExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Планировщик исходящих вызовов Telegram Bot API.
+ * <p>
+ * Все отправки проходят через глобальный token bucket (~30 сообщений/с) и bucket
+ * на каждый чат (~1 сообщение/с). Задачи выбираются из очереди по приоритету
+ * {@link SendPriority}, сами HTTP-вызовы выполняет пул отправителей, поэтому
+ * задержка Telegram не ограничивает пропускную способность.
+ * <p>
+ * Вызовы одного чата идут в пул через {@link KeyedExecutor} и выполняются по одному в порядке выдачи,
+ * иначе сообщения из burst чата уходили бы параллельно и могли прийти не по порядку.
+ * Глобальный лимит ожидается до того, как задача снята с очереди: задача, пришедшая за время ожидания,
+ * конкурирует по приоритету наравне с остальными.
+ */
+@Slf4j
+@Component
+public class OutboundMessageDispatcher {
+
+    @FunctionalInterface
+    public interface TelegramCall<T> {
+        T call() throws TelegramApiException;
+    }
+
+    @Value("${telegram.outbound.global-rate:30}")
+    private double globalRate;
+
+    @Value("${telegram.outbound.global-burst:5}")
+    private double globalBurst;
+
+    @Value("${telegram.outbound.per-chat-rate:1}")
+    private double perChatRate;
+
+    @Value("${telegram.outbound.per-chat-burst:3}")
+    private double perChatBurst;
+
+    @Value("${telegram.outbound.sender-threads:8}")
+    private int senderThreads;
+
+    private final MeterRegistry meterRegistry;
+    private final PriorityBlockingQueue<OutboundTask<?>> queue = new PriorityBlockingQueue<>();
+    private final ConcurrentHashMap<Long, TokenBucket> chatBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private TokenBucket globalBucket;
+    private ExecutorService senders;
+    private KeyedExecutor chatSenders;
+    private ScheduledExecutorService delayer;
+    private Thread dispatcherThread;
+    private volatile boolean running;
+
+    public OutboundMessageDispatcher(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        globalBucket = new TokenBucket(globalRate, globalBurst, System.nanoTime());
+        senders = Executors.newFixedThreadPool(senderThreads, namedThreadFactory("tg-sender-"));
+        // Очередь чата уже ограничена его bucket'ом, отдельный предел здесь не нужен
+        chatSenders = new KeyedExecutor(senders, Integer.MAX_VALUE);
+        delayer = Executors.newSingleThreadScheduledExecutor(namedThreadFactory("tg-send-delay-"));
+        delayer.scheduleAtFixedRate(this::evictIdleBuckets, 1, 1, TimeUnit.MINUTES);
+
+        running = true;
+        dispatcherThread = new Thread(this::dispatchLoop, "tg-dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+        log.info("Outbound dispatcher started: global {} msg/s, per chat {} msg/s, {} sender threads",
+                globalRate, perChatRate, senderThreads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcherThread.interrupt();
+        delayer.shutdownNow();
+        senders.shutdown();
+
+        List<OutboundTask<?>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (OutboundTask<?> task : pending) {
+            task.future.completeExceptionally(new RejectedExecutionException("Dispatcher is shutting down"));
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Long chatId, SendPriority priority, TelegramCall<T> call) {
+        OutboundTask<T> task = new OutboundTask<>(chatId, priority, sequence.incrementAndGet(), call);
+        if (!running) {
+            task.future.completeExceptionally(new RejectedExecutionException("Dispatcher is not running"));
+            return task.future;
+        }
+        queue.offer(task);
+        return task.future;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            // Ждем глобальный токен, не держа задачу: за это время в очередь может прийти более срочная
+            long globalWait = globalBucket.waitNanos(System.nanoTime());
+            if (globalWait > 0) {
+                LockSupport.parkNanos(globalWait);
+                continue;
+            }
+
+            OutboundTask<?> task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            // Резервируем слот чата один раз, отложенная задача вернется в очередь уже с ним
+            if (!task.chatSlotReserved && task.chatId != null) {
+                task.chatSlotReserved = true;
+                long chatWait = chatBucket(task.chatId).reserve(System.nanoTime());
+                if (chatWait > 0) {
+                    delayer.schedule(() -> queue.offer(task), chatWait, TimeUnit.NANOSECONDS);
+                    continue;
+                }
+            }
+
+            // Токен проверен выше, но до take() могло пройти время; без токена задача возвращается в очередь
+            if (!globalBucket.tryAcquire(System.nanoTime())) {
+                queue.offer(task);
+                continue;
+            }
+
+            try {
+                if (task.chatId != null) {
+                    chatSenders.execute(task.chatId, () -> send(task));
+                } else {
+                    senders.execute(() -> send(task));
+                }
+            } catch (RejectedExecutionException e) {
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private <T> void send(OutboundTask<T> task) {
+        long startedNanos = System.nanoTime();
+        String code = "ok";
+        try {
+            task.future.complete(task.call.call());
+        } catch (Exception e) {
+            code = errorCode(e);
+            task.future.completeExceptionally(e);
+        } finally {
+            meterRegistry.timer("telegram.api.requests", "priority", task.priority.name(), "code", code)
+                    .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Код ответа Bot API (429, 403, ...) или "io" для сетевых ошибок
+    private static String errorCode(Exception e) {
+        if (e instanceof TelegramApiRequestException requestException && requestException.getErrorCode() != null) {
+            return requestException.getErrorCode().toString();
+        }
+        return "io";
+    }
+
+    private TokenBucket chatBucket(Long chatId) {
+        return chatBuckets.computeIfAbsent(chatId,
+                id -> new TokenBucket(perChatRate, perChatBurst, System.nanoTime()));
+    }
+
+    private void evictIdleBuckets() {
+        long now = System.nanoTime();
+        chatBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class OutboundTask<T> implements Comparable<OutboundTask<?>> {
+        private final Long chatId;
+        private final SendPriority priority;
+        private final long seq;
+        private final TelegramCall<T> call;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private boolean chatSlotReserved;
+
+        private OutboundTask(Long chatId, SendPriority priority, long seq, TelegramCall<T> call) {
+            this.chatId = chatId;
+            this.priority = priority;
+            this.seq = seq;
+            this.call = call;
+        }
+
+        @Override
+        public int compareTo(OutboundTask<?> other) {
+            int byPriority = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+}
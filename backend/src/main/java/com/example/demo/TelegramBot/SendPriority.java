@@ -0,0 +1,14 @@
+package com.example.demo.TelegramBot;
+
+/**
+ * Полосы приоритета исходящих сообщений. Чем меньше ordinal, тем раньше сообщение
+ * уходит в Telegram при конкуренции за лимиты.
+ */
+public enum SendPriority {
+    // Пересылка сообщений между участниками анонимного чата
+    CHAT_RELAY,
+    // Ответы на команды и уведомления о заказах/оплате
+    TRANSACTIONAL,
+    // Массовые рассылки исполнителям о новых заказах
+    BROADCAST
+}
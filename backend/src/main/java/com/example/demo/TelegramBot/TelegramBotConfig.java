@@ -19,6 +19,19 @@ public class TelegramBotConfig {
     @Value("${telegram.bot.username:}")
     private String botUsername;
 
+    // polling - long polling через DefaultBotSession (один инстанс), webhook - обновления приходят в TelegramWebhookController
+    @Value("${telegram.bot.mode:polling}")
+    private String mode;
+
+    @Value("${telegram.webhook.url:}")
+    private String webhookUrl;
+
+    @Value("${telegram.webhook.secret:}")
+    private String webhookSecret;
+
+    @Value("${telegram.webhook.max-connections:40}")
+    private int webhookMaxConnections;
+
     @Bean
     public TelegramBotsApi telegramBotsApi(TelegramBotService telegramBotService) {
         try {
@@ -26,8 +39,13 @@ public class TelegramBotConfig {
 
             if (botToken != null && !botToken.isEmpty() &&
                     botUsername != null && !botUsername.isEmpty()) {
-                botsApi.registerBot(telegramBotService);
-                log.info("Telegram bot успешно зарегистрирован: {}", botUsername);
+                if ("webhook".equalsIgnoreCase(mode)) {
+                    telegramBotService.registerWebhook(webhookUrl, webhookSecret, webhookMaxConnections);
+                    log.info("Telegram bot {} работает через webhook: {}", botUsername, webhookUrl);
+                } else {
+                    botsApi.registerBot(telegramBotService);
+                    log.info("Telegram bot успешно зарегистрирован: {}", botUsername);
+                }
             } else {
                 log.warn("Telegram bot токен или username не указаны. Бот не будет запущен.");
             }
@@ -38,4 +56,4 @@ public class TelegramBotConfig {
             throw new RuntimeException("Не удалось зарегистрировать Telegram бота", e);
         }
     }
-}
\ No newline at end of file
+}
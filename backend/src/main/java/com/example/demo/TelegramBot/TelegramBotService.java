@@ -1,16 +1,22 @@
 package com.example.demo.TelegramBot;
 
+import com.example.demo.config.KeyedExecutor;
+import com.example.demo.config.LogContext;
 import com.example.demo.dto.PaymentRequest;
+import com.example.demo.dto.SessionView;
 import com.example.demo.dto.TinkoffInitResponse;
 import com.example.demo.entity.ChatSession;
 import com.example.demo.service.ChatService;
+import com.example.demo.service.ChatSessionCache;
 import com.example.demo.service.OrderService;
+import com.example.demo.service.PaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
@@ -19,22 +25,24 @@ import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
 import org.telegram.telegrambots.meta.api.methods.send.SendVoice;
 import org.telegram.telegrambots.meta.api.methods.send.SendVideo;
 import org.telegram.telegrambots.meta.api.methods.send.SendAudio;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.springframework.context.annotation.Lazy;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Component
@@ -46,18 +54,54 @@ public class TelegramBotService extends TelegramLongPollingBot {
     @Value("${telegram.bot.username:}")
     private String botUsername;
 
+    // Значения тега command метрики bot.updates, в порядке разбора в processTextMessage
+    private static final List<String> COMMANDS = List.of("/start", "/close_chat", "/approve_close",
+            "/sessions", "/switch_", "/pay", "/confirm_completion", "/status");
+
     private final ChatService chatService;
     private final OrderService orderService;
-    private final ExecutorService messageExecutor = Executors.newFixedThreadPool(8);
-
-    public TelegramBotService(@Lazy ChatService chatService, @Lazy OrderService orderService, @Value("${telegram.bot.token}") String botToken) {
-        super(botToken);
+    private final OutboundMessageDispatcher outboundDispatcher;
+    private final TelegramRetryQueue retryQueue;
+    private final KeyedExecutor updateQueue;
+    private final ChatSessionCache sessionCache;
+    private final MeterRegistry meterRegistry;
+
+    public TelegramBotService(@Lazy ChatService chatService, @Lazy OrderService orderService,
+                              OutboundMessageDispatcher outboundDispatcher, TelegramRetryQueue retryQueue,
+                              KeyedExecutor updateQueue, ChatSessionCache sessionCache, MeterRegistry meterRegistry,
+                              @Value("${telegram.bot.token}") String botToken,
+                              @Value("${telegram.bot.api-url:https://api.telegram.org/bot}") String apiUrl) {
+        super(botOptions(apiUrl), botToken);
+        this.updateQueue = updateQueue;
+        this.sessionCache = sessionCache;
+        this.meterRegistry = meterRegistry;
         this.chatService = chatService;
         this.orderService = orderService;
+        this.outboundDispatcher = outboundDispatcher;
+        this.retryQueue = retryQueue;
+        retryQueue.setRedeliveryHandler(this::attemptDelivery);
     }
 
     @Autowired
-    private RestTemplate restTemplate;
+    @Lazy
+    private PaymentService paymentService;
+
+    // Адрес Bot API переопределяется для локального стаба в интеграционных тестах
+    private static DefaultBotOptions botOptions(String apiUrl) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(apiUrl);
+        return options;
+    }
+
+    public void registerWebhook(String url, String secretToken, int maxConnections) throws TelegramApiException {
+        SetWebhook.SetWebhookBuilder setWebhook = SetWebhook.builder()
+                .url(url)
+                .maxConnections(maxConnections);
+        if (secretToken != null && !secretToken.isEmpty()) {
+            setWebhook.secretToken(secretToken);
+        }
+        execute(setWebhook.build());
+    }
 
     @Override
     public String getBotUsername() {
@@ -71,10 +115,86 @@ public class TelegramBotService extends TelegramLongPollingBot {
 
     @Override
     public void onUpdateReceived(Update update) {
-        CompletableFuture.runAsync(() -> processUpdate(update), messageExecutor);
+        // Очередь чата заполнена - один чат присылает больше, чем успевает обработаться: лишнее отбрасываем
+        if (!enqueueUpdate(update)) {
+            log.warn("Dropping update {}: chat queue is full", update.getUpdateId());
+            meterRegistry.counter("bot.updates.dropped", "reason", "chat_queue_full").increment();
+        }
+    }
+
+    /**
+     * Ставит обновление в очередь его чата.
+     *
+     * @return false, если очередь чата заполнена и обновление не принято
+     * @throws java.util.concurrent.RejectedExecutionException если исполнитель не принял очередь нового чата
+     */
+    public boolean enqueueUpdate(Update update) {
+        Long chatId = resolveChatId(update);
+        if (chatId == null) {
+            log.debug("Ignoring update {} without chat", update.getUpdateId());
+            return true;
+        }
+        return updateQueue.execute(chatId, () -> sessionCache.inScope(() -> processUpdate(update)));
+    }
+
+    private Long resolveChatId(Update update) {
+        if (update.hasCallbackQuery()) {
+            return update.getCallbackQuery().getFrom().getId();
+        }
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        return null;
     }
 
     private void processUpdate(Update update) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        LogContext.put(LogContext.USER_ID, resolveChatId(update));
+        try {
+            routeUpdate(update);
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            LogContext.remove(LogContext.USER_ID);
+            sample.stop(meterRegistry.timer("bot.updates", "command", commandOf(update), "outcome", outcome));
+        }
+    }
+
+    // Тег метрики: известная команда, "text" для сообщений в чат, тип вложения или "callback"
+    static String commandOf(Update update) {
+        if (update.hasCallbackQuery()) {
+            return "callback";
+        }
+        if (!update.hasMessage()) {
+            return "other";
+        }
+        Message message = update.getMessage();
+        if (message.hasText()) {
+            for (String command : COMMANDS) {
+                if (message.getText().startsWith(command)) {
+                    return command;
+                }
+            }
+            return "text";
+        }
+        if (message.hasPhoto()) {
+            return "photo";
+        }
+        if (message.hasDocument()) {
+            return "document";
+        }
+        if (message.hasVoice()) {
+            return "voice";
+        }
+        if (message.hasVideo()) {
+            return "video";
+        }
+        return message.hasAudio() ? "audio" : "other";
+    }
+
+    private void routeUpdate(Update update) {
         if (update.hasCallbackQuery()) {
             handleCallbackQuery(update.getCallbackQuery());
             return;
@@ -220,35 +340,24 @@ public class TelegramBotService extends TelegramLongPollingBot {
     }
 
     private void handlePayCommand(Long userId) {
-        String currentSessionId = chatService.getUserCurrentSession(userId);
-        Long SecondUserId = chatService.getSecondUserId(currentSessionId);
-        Long FirstUserId = chatService.getFirstUserId(currentSessionId);
-        if (currentSessionId != null) {
+        SessionView currentSession = chatService.getCurrentSessionView(userId);
+        if (currentSession != null) {
             try {
-                Long orderId = chatService.getOrderId(currentSessionId);
+                Long orderId = currentSession.orderId();
                 String amount = orderService.getAmountByOrderId(orderId);
-                boolean success = chatService.handlePayCommand(String.valueOf(currentSessionId), userId, orderId);
+                boolean success = chatService.handlePayCommand(currentSession.sessionId(), userId, orderId);
                 if (!success) {
                     sendMessageAsync(userId, "❌ Оплата уже была подтверждена ранее.");
                 } else {
                     PaymentRequest paymentRequest = new PaymentRequest();
                     paymentRequest.setAmount(Long.valueOf(amount) * 1000);
-                    paymentRequest.setUserIdFrom(String.valueOf(FirstUserId));
-                    paymentRequest.setUserIdTo(String.valueOf(SecondUserId));
-                    System.out.println(orderId);
+                    paymentRequest.setUserIdFrom(String.valueOf(currentSession.user1Id()));
+                    paymentRequest.setUserIdTo(String.valueOf(currentSession.user2Id()));
                     paymentRequest.setOrderNumber(String.valueOf(orderId));
                     paymentRequest.setDate(LocalDate.now().toString());
 
-                    ResponseEntity<TinkoffInitResponse> response = restTemplate.postForEntity(
-                            "http://localhost:80/api/payment/create-payment-link",
-                            paymentRequest,
-                            TinkoffInitResponse.class
-                    );
-                    if (response.getBody().getSuccess().equals("true")) {
-                        SendMessage message = new SendMessage();
-                        message.setChatId(userId.toString());
-                        message.setText("Ссылка на оплату вашего заказа в Т-банке");
-
+                    TinkoffInitResponse response = paymentService.createPaymentLink(paymentRequest);
+                    if ("true".equals(response.getSuccess())) {
                         InlineKeyboardMarkup keyboard = new InlineKeyboardMarkup();
                         List<List<InlineKeyboardButton>> rows = new ArrayList<>();
 
@@ -256,20 +365,15 @@ public class TelegramBotService extends TelegramLongPollingBot {
 
                         InlineKeyboardButton urlButton = new InlineKeyboardButton();
                         urlButton.setText("Перейти для оплаты заказа");
-                        urlButton.setUrl(response.getBody().getPaymentURL());
+                        urlButton.setUrl(response.getPaymentURL());
 
                         row.add(urlButton);
                         rows.add(row);
                         keyboard.setKeyboard(rows);
-                        message.setReplyMarkup(keyboard);
 
-                        try {
-                            execute(message);
-                        } catch (TelegramApiException e) {
-                            log.error("Ошибка при отправке сообщения: {}", e.getMessage());
-                        }
+                        sendMessageWithKeyboard(userId, "Ссылка на оплату вашего заказа в Т-банке", keyboard);
                     } else {
-                        sendMessageAsync(userId, response.getBody().getMessage());
+                        sendMessageAsync(userId, response.getMessage());
                     }
                 }
 
@@ -355,7 +459,12 @@ public class TelegramBotService extends TelegramLongPollingBot {
     private void handleChatMessage(Long userId, String message, String fileId, String fileType, String caption) {
         String currentSessionId = chatService.getUserCurrentSession(userId);
         if (currentSessionId != null) {
-            chatService.sendMessage(currentSessionId, userId, message, fileId, fileType, caption);
+            LogContext.put(LogContext.SESSION_ID, currentSessionId);
+            try {
+                chatService.sendMessage(currentSessionId, userId, message, fileId, fileType, caption);
+            } finally {
+                LogContext.remove(LogContext.SESSION_ID);
+            }
         } else {
             sendMessageAsync(userId, "У вас нет активного чата. Создайте чат через веб-интерфейс.");
         }
@@ -400,7 +509,7 @@ public class TelegramBotService extends TelegramLongPollingBot {
             editMessage.setText("✅ Успешно переключены!\n\n" + buildSessionsText(userId, sessions, currentSessionId));
             editMessage.setReplyMarkup(createSessionsKeyboard(userId, sessions, currentSessionId));
 
-            execute(editMessage);
+            editMessageAsync(editMessage);
 
         } catch (Exception e) {
             log.error("Error switching session via callback: {}", e.getMessage());
@@ -421,7 +530,7 @@ public class TelegramBotService extends TelegramLongPollingBot {
                 editMessage.setText("✅ Запрос на закрытие чата отправлен!\n\n" + buildSessionsText(userId, sessions, currentSessionId));
                 editMessage.setReplyMarkup(createSessionsKeyboard(userId, sessions, currentSessionId));
 
-                execute(editMessage);
+                editMessageAsync(editMessage);
             }
         } catch (Exception e) {
             log.error("Error closing chat via callback: {}", e.getMessage());
@@ -440,7 +549,7 @@ public class TelegramBotService extends TelegramLongPollingBot {
             editMessage.setText(buildSessionsText(userId, sessions, currentSessionId));
             editMessage.setReplyMarkup(createSessionsKeyboard(userId, sessions, currentSessionId));
 
-            execute(editMessage);
+            editMessageAsync(editMessage);
 
         } catch (Exception e) {
             log.error("Error refreshing sessions: {}", e.getMessage());
@@ -514,170 +623,173 @@ public class TelegramBotService extends TelegramLongPollingBot {
         }
     }
 
-    private void sendMessageWithKeyboard(Long chatId, String text, InlineKeyboardMarkup keyboard) {
-        CompletableFuture.runAsync(() -> {
-            SendMessage message = new SendMessage();
-            message.setChatId(chatId.toString());
-            message.setText(text);
-            message.setReplyMarkup(keyboard);
+    private CompletableFuture<Message> sendMessageWithKeyboard(Long chatId, String text, InlineKeyboardMarkup keyboard) {
+        OutboundMessage message = OutboundMessage.text(chatId, text, SendPriority.TRANSACTIONAL);
+        message.setReplyMarkup(keyboard);
 
-            try {
-                execute(message);
-                log.debug("Message with keyboard sent to {}", chatId);
-            } catch (TelegramApiException e) {
-                log.error("Error sending message with keyboard to {}: {}", chatId, e.getMessage());
-            }
-        }, messageExecutor);
+        return deliver(message)
+                .whenComplete((sent, e) -> {
+                    if (e == null) {
+                        log.debug("Message with keyboard sent to {}", chatId);
+                    } else {
+                        log.error("Error sending message with keyboard to {}: {}", chatId, e.getMessage());
+                    }
+                });
+    }
+
+    private CompletableFuture<Serializable> editMessageAsync(EditMessageText editMessage) {
+        Long chatId = Long.valueOf(editMessage.getChatId());
+        return outboundDispatcher.submit(chatId, SendPriority.TRANSACTIONAL, () -> execute(editMessage))
+                .whenComplete((edited, e) -> {
+                    if (e != null) {
+                        log.error("Error editing message in chat {}: {}", chatId, e.getMessage());
+                    }
+                });
     }
 
     // Добавьте методы для отправки файлов
-    public CompletableFuture<Void> sendFileAsync(Long chatId, String fileId, String fileType, String caption) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                switch (fileType) {
-                    case "photo":
-                        sendPhoto(chatId, fileId, caption);
-                        break;
-                    case "document":
-                        sendDocument(chatId, fileId, caption);
-                        break;
-                    case "voice":
-                        sendVoice(chatId, fileId, caption);
-                        break;
-                    case "video":
-                        sendVideo(chatId, fileId, caption);
-                        break;
-                    case "audio":
-                        sendAudio(chatId, fileId, caption);
-                        break;
-                    default:
-                        sendDocument(chatId, fileId, caption);
-                        break;
-                }
-                log.debug("File sent to {}: type {}", chatId, fileType);
-            } catch (Exception e) {
-                log.error("Error sending file to {}: {}", chatId, e.getMessage());
-            }
-        }, messageExecutor);
+    public CompletableFuture<Message> sendFileAsync(Long chatId, String fileId, String fileType, String caption) {
+        return deliver(OutboundMessage.file(chatId, fileId, fileType, caption))
+                .whenComplete((sent, e) -> {
+                    if (e == null) {
+                        log.debug("File sent to {}: type {}", chatId, fileType);
+                    } else {
+                        log.error("Error sending file to {}: {}", chatId, e.getMessage());
+                    }
+                });
+    }
+
+    private Message sendFile(Long chatId, String fileId, String fileType, String caption) throws TelegramApiException {
+        switch (fileType) {
+            case "photo":
+                return sendPhoto(chatId, fileId, caption);
+            case "voice":
+                return sendVoice(chatId, fileId, caption);
+            case "video":
+                return sendVideo(chatId, fileId, caption);
+            case "audio":
+                return sendAudio(chatId, fileId, caption);
+            case "document":
+            default:
+                return sendDocument(chatId, fileId, caption);
+        }
     }
 
-    private void sendPhoto(Long chatId, String fileId, String caption) throws TelegramApiException {
+    private Message sendPhoto(Long chatId, String fileId, String caption) throws TelegramApiException {
         SendPhoto sendPhoto = new SendPhoto();
         sendPhoto.setChatId(chatId.toString());
         sendPhoto.setPhoto(new InputFile(fileId));
         if (caption != null && !caption.trim().isEmpty()) {
             sendPhoto.setCaption(caption);
         }
-        execute(sendPhoto);
+        return execute(sendPhoto);
     }
 
-    private void sendDocument(Long chatId, String fileId, String caption) throws TelegramApiException {
+    private Message sendDocument(Long chatId, String fileId, String caption) throws TelegramApiException {
         SendDocument sendDocument = new SendDocument();
         sendDocument.setChatId(chatId.toString());
         sendDocument.setDocument(new InputFile(fileId));
         if (caption != null && !caption.trim().isEmpty()) {
             sendDocument.setCaption(caption);
         }
-        execute(sendDocument);
+        return execute(sendDocument);
     }
 
-    private void sendVoice(Long chatId, String fileId, String caption) throws TelegramApiException {
+    private Message sendVoice(Long chatId, String fileId, String caption) throws TelegramApiException {
         SendVoice sendVoice = new SendVoice();
         sendVoice.setChatId(chatId.toString());
         sendVoice.setVoice(new InputFile(fileId));
         if (caption != null && !caption.trim().isEmpty()) {
             sendVoice.setCaption(caption);
         }
-        execute(sendVoice);
+        return execute(sendVoice);
     }
 
-    private void sendVideo(Long chatId, String fileId, String caption) throws TelegramApiException {
+    private Message sendVideo(Long chatId, String fileId, String caption) throws TelegramApiException {
         SendVideo sendVideo = new SendVideo();
         sendVideo.setChatId(chatId.toString());
         sendVideo.setVideo(new InputFile(fileId));
         if (caption != null && !caption.trim().isEmpty()) {
             sendVideo.setCaption(caption);
         }
-        execute(sendVideo);
+        return execute(sendVideo);
     }
 
-    private void sendAudio(Long chatId, String fileId, String caption) throws TelegramApiException {
+    private Message sendAudio(Long chatId, String fileId, String caption) throws TelegramApiException {
         SendAudio sendAudio = new SendAudio();
         sendAudio.setChatId(chatId.toString());
         sendAudio.setAudio(new InputFile(fileId));
         if (caption != null && !caption.trim().isEmpty()) {
             sendAudio.setCaption(caption);
         }
-        execute(sendAudio);
+        return execute(sendAudio);
     }
 
-    public void sendAcceptOrderMessage(Long chatId, Long orderId, String messageText) {
-        CompletableFuture.runAsync(() -> {
-            SendMessage message = new SendMessage();
-            message.setChatId(chatId.toString());
-            message.setText("🎯 Новый заказ!\n\n" + messageText);
-
-            try {
-                execute(message);
-                log.info("Order notification sent to {}", chatId);
-            } catch (TelegramApiException e) {
-                log.error("Error sending order notification to {}: {}", chatId, e.getMessage());
-            }
-        }, messageExecutor);
+    public CompletableFuture<Message> sendAcceptOrderMessage(Long chatId, Long orderId, String messageText) {
+        return deliver(OutboundMessage.text(chatId, "🎯 Новый заказ!\n\n" + messageText, SendPriority.BROADCAST))
+                .whenComplete((sent, e) -> {
+                    if (e == null) {
+                        log.debug("Order notification sent to {}", chatId);
+                    } else {
+                        log.error("Error sending order notification to {}: {}", chatId, e.getMessage());
+                    }
+                });
     }
 
-    public CompletableFuture<Void> sendMessageWithRetry(Long chatId, String text) {
-        return CompletableFuture.runAsync(() -> {
-            int maxRetries = 3;
-            int retryCount = 0;
-
-            while (retryCount < maxRetries) {
-                try {
-                    SendMessage message = new SendMessage();
-                    message.setChatId(chatId.toString());
-                    message.setText(text);
-
-                    execute(message);
-                    log.debug("Message sent to {}: {}", chatId, text.substring(0, Math.min(50, text.length())) + "...");
-                    return;
+    public CompletableFuture<Message> sendMessageWithRetry(Long chatId, String text) {
+        // Повторы с учетом retry_after выполняет TelegramRetryQueue для любой отправки
+        return sendMessageAsync(chatId, text);
+    }
 
-                } catch (TelegramApiException e) {
-                    retryCount++;
-                    log.warn("Failed to send message to {} (attempt {}/{}): {}",
-                            chatId, retryCount, maxRetries, e.getMessage());
+    public CompletableFuture<Message> sendMessageAsync(Long chatId, String text) {
+        return sendMessageAsync(chatId, text, SendPriority.TRANSACTIONAL);
+    }
 
-                    if (retryCount >= maxRetries) {
-                        log.error("Failed to send message to {} after {} attempts", chatId, maxRetries);
-                        break;
+    public CompletableFuture<Message> sendMessageAsync(Long chatId, String text, SendPriority priority) {
+        return deliver(OutboundMessage.text(chatId, text, priority))
+                .whenComplete((sent, e) -> {
+                    if (e == null) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Message sent to {}: {}...", chatId, text.substring(0, Math.min(50, text.length())));
+                        }
+                    } else {
+                        log.error("Error sending message to {}: {}", chatId, e.getMessage());
                     }
+                });
+    }
 
-                    try {
-                        Thread.sleep(2000 * retryCount);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            }
-        }, messageExecutor);
+    public void sendMessage(Long chatId, String text) {
+        sendMessageAsync(chatId, text);
     }
 
-    public CompletableFuture<Void> sendMessageAsync(Long chatId, String text) {
-        return CompletableFuture.runAsync(() -> {
-            SendMessage message = new SendMessage();
-            message.setChatId(chatId.toString());
-            message.setText(text);
+    private CompletableFuture<Message> deliver(OutboundMessage message) {
+        CompletableFuture<Message> result = retryQueue.track(message);
+        attemptDelivery(message);
+        return result;
+    }
 
-            try {
-                execute(message);
-                log.debug("Message sent to {}: {}", chatId, text.substring(0, Math.min(50, text.length())) + "...");
-            } catch (TelegramApiException e) {
-                log.error("Error sending message to {}: {}", chatId, e.getMessage());
-            }
-        }, messageExecutor);
+    private void attemptDelivery(OutboundMessage message) {
+        outboundDispatcher.submit(message.getChatId(), message.getPriority(), () -> executeOutbound(message))
+                .whenComplete((sent, e) -> {
+                    if (e == null) {
+                        retryQueue.completed(message, sent);
+                    } else {
+                        retryQueue.retryOrFail(message, e instanceof CompletionException ? e.getCause() : e);
+                    }
+                });
     }
 
-    public void sendMessage(Long chatId, String text) {
-        sendMessageAsync(chatId, text);
+    private Message executeOutbound(OutboundMessage message) throws TelegramApiException {
+        if (!"text".equals(message.getType())) {
+            return sendFile(message.getChatId(), message.getFileId(), message.getType(), message.getCaption());
+        }
+
+        SendMessage sendMessage = new SendMessage();
+        sendMessage.setChatId(message.getChatId().toString());
+        sendMessage.setText(message.getText());
+        if (message.getReplyMarkup() != null) {
+            sendMessage.setReplyMarkup(message.getReplyMarkup());
+        }
+        return execute(sendMessage);
     }
-}
\ No newline at end of file
+}
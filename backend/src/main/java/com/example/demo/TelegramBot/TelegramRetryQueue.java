@@ -0,0 +1,203 @@
+package com.example.demo.TelegramBot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Очередь отложенных повторов отправки в Telegram.
+ * <p>
+ * Сообщения хранятся в Redis sorted set со score = время следующей попытки (epoch ms),
+ * поэтому переживают рестарт приложения. Ожидание не занимает потоки: периодический
+ * опрос забирает созревшие записи через ZREM (забирает ровно один инстанс) и отдает
+ * их обработчику повторной отправки. После исчерпания попыток сообщение уходит в dead-letter список.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TelegramRetryQueue {
+    private static final String RETRY_QUEUE_KEY = "telegram:retry:queue";
+    private static final String DEAD_LETTER_KEY = "telegram:retry:dead-letter";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${telegram.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${telegram.retry.base-delay-ms:1000}")
+    private long baseDelayMs;
+
+    @Value("${telegram.retry.max-delay-ms:60000}")
+    private long maxDelayMs;
+
+    @Value("${telegram.retry.max-jitter-ms:1000}")
+    private long maxJitterMs;
+
+    @Value("${telegram.retry.poll-interval-ms:250}")
+    private long pollIntervalMs;
+
+    @Value("${telegram.retry.poll-batch-size:100}")
+    private int pollBatchSize;
+
+    @Value("${telegram.retry.dead-letter-size:1000}")
+    private int deadLetterSize;
+
+    // Фьючерсы вызывающих, ожидающих доставки сообщения (только в рамках текущего инстанса)
+    private final ConcurrentHashMap<String, CompletableFuture<Message>> pending = new ConcurrentHashMap<>();
+
+    private volatile Consumer<OutboundMessage> redeliveryHandler;
+    private ScheduledExecutorService poller;
+
+    @PostConstruct
+    public void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tg-retry-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollDue, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    public void setRedeliveryHandler(Consumer<OutboundMessage> redeliveryHandler) {
+        this.redeliveryHandler = redeliveryHandler;
+    }
+
+    public CompletableFuture<Message> track(OutboundMessage message) {
+        return pending.computeIfAbsent(message.getId(), id -> new CompletableFuture<>());
+    }
+
+    public void completed(OutboundMessage message, Message sent) {
+        CompletableFuture<Message> future = pending.remove(message.getId());
+        if (future != null) {
+            future.complete(sent);
+        }
+    }
+
+    /**
+     * Планирует повтор, если ошибка временная и попытки не исчерпаны, иначе завершает отправку ошибкой.
+     */
+    public void retryOrFail(OutboundMessage message, Throwable error) {
+        message.setAttempt(message.getAttempt() + 1);
+        message.setLastError(error.getMessage());
+
+        if (!isRetryable(error)) {
+            failed(message, error);
+            return;
+        }
+        if (message.getAttempt() >= maxAttempts) {
+            log.error("Giving up on message {} to {} after {} attempts: {}",
+                    message.getId(), message.getChatId(), message.getAttempt(), error.getMessage());
+            deadLetter(message);
+            failed(message, error);
+            return;
+        }
+
+        long delayMs = computeDelayMs(error, message.getAttempt());
+        try {
+            String payload = objectMapper.writeValueAsString(message);
+            stringRedisTemplate.opsForZSet().add(RETRY_QUEUE_KEY, payload, System.currentTimeMillis() + delayMs);
+            log.warn("Message {} to {} scheduled for retry {}/{} in {} ms: {}",
+                    message.getId(), message.getChatId(), message.getAttempt(), maxAttempts, delayMs, error.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to schedule retry for message {} to {}: {}",
+                    message.getId(), message.getChatId(), e.getMessage());
+            failed(message, error);
+        }
+    }
+
+    public Long getQueueSize() {
+        return stringRedisTemplate.opsForZSet().zCard(RETRY_QUEUE_KEY);
+    }
+
+    private void failed(OutboundMessage message, Throwable error) {
+        CompletableFuture<Message> future = pending.remove(message.getId());
+        if (future != null) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private void pollDue() {
+        Consumer<OutboundMessage> handler = redeliveryHandler;
+        if (handler == null) {
+            return;
+        }
+
+        try {
+            Set<String> due = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(RETRY_QUEUE_KEY, 0, System.currentTimeMillis(), 0, pollBatchSize);
+            if (due == null || due.isEmpty()) {
+                return;
+            }
+
+            for (String payload : due) {
+                Long removed = stringRedisTemplate.opsForZSet().remove(RETRY_QUEUE_KEY, payload);
+                if (removed == null || removed == 0) {
+                    // Запись уже забрал другой инстанс
+                    continue;
+                }
+                try {
+                    handler.accept(objectMapper.readValue(payload, OutboundMessage.class));
+                } catch (JsonProcessingException e) {
+                    log.error("Dropping unreadable retry entry: {}", e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error polling Telegram retry queue: {}", e.getMessage());
+        }
+    }
+
+    private void deadLetter(OutboundMessage message) {
+        try {
+            stringRedisTemplate.opsForList().leftPush(DEAD_LETTER_KEY, objectMapper.writeValueAsString(message));
+            stringRedisTemplate.opsForList().trim(DEAD_LETTER_KEY, 0, deadLetterSize - 1);
+        } catch (Exception e) {
+            log.error("Failed to move message {} to dead-letter list: {}", message.getId(), e.getMessage());
+        }
+    }
+
+    private boolean isRetryable(Throwable error) {
+        if (error instanceof TelegramApiRequestException requestException) {
+            Integer code = requestException.getErrorCode();
+            // Без кода ответа - сетевая ошибка, 429 - flood control, 5xx - сбой на стороне Telegram
+            return code == null || code == 429 || code >= 500;
+        }
+        return error instanceof TelegramApiException || error instanceof RejectedExecutionException;
+    }
+
+    private long computeDelayMs(Throwable error, int attempt) {
+        long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 16));
+        if (error instanceof TelegramApiRequestException requestException) {
+            ResponseParameters parameters = requestException.getParameters();
+            if (parameters != null && parameters.getRetryAfter() != null) {
+                delay = parameters.getRetryAfter() * 1000L;
+            }
+        }
+        return delay + ThreadLocalRandom.current().nextLong(maxJitterMs + 1);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.TelegramBot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Прием обновлений в webhook-режиме.
+ * <p>
+ * Telegram повторяет доставку, если не получил ответ вовремя, а за балансировщиком одно и то же
+ * обновление может прийти на разные инстансы. Поэтому update_id сначала фиксируется в Redis (SETNX),
+ * и обрабатывает обновление только тот, кто записал ключ первым. Сама обработка идет асинхронно
+ * в очереди чата, ответ Telegram отдается сразу. Если все слоты обработки заняты или очередь чата
+ * заполнена, обновление отклоняется без ожидания, а ключ снимается, чтобы повторную доставку Telegram
+ * не сочли дублем.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class TelegramWebhookHandler {
+    private static final String UPDATE_KEY = "telegram:update:";
+
+    private final TelegramBotService telegramBotService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${telegram.webhook.secret:}")
+    private String secret;
+
+    @Value("${telegram.webhook.dedup-ttl-seconds:86400}")
+    private long dedupTtlSeconds;
+
+    public String getSecret() {
+        return secret;
+    }
+
+    /**
+     * @return false, если обновление уже было принято ранее
+     * @throws RejectedExecutionException если обработчик перегружен - Telegram нужно ответить ошибкой
+     */
+    public boolean accept(Update update) {
+        if (!markReceived(update.getUpdateId())) {
+            log.debug("Duplicate update {} skipped", update.getUpdateId());
+            return false;
+        }
+        boolean queued;
+        try {
+            queued = telegramBotService.enqueueUpdate(update);
+        } catch (RejectedExecutionException e) {
+            unmarkReceived(update.getUpdateId());
+            throw e;
+        }
+        if (!queued) {
+            unmarkReceived(update.getUpdateId());
+            throw new RejectedExecutionException("Chat queue is full");
+        }
+        return true;
+    }
+
+    private void unmarkReceived(Integer updateId) {
+        if (updateId == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(UPDATE_KEY + updateId);
+        } catch (Exception e) {
+            log.warn("Failed to release update {} for redelivery: {}", updateId, e.getMessage());
+        }
+    }
+
+    private boolean markReceived(Integer updateId) {
+        if (updateId == null) {
+            return true;
+        }
+        try {
+            Boolean first = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(UPDATE_KEY + updateId, "1", Duration.ofSeconds(dedupTtlSeconds));
+            return !Boolean.FALSE.equals(first);
+        } catch (Exception e) {
+            // Без Redis лучше обработать возможный дубль, чем потерять обновление
+            log.warn("Failed to check update {} for duplicates: {}", updateId, e.getMessage());
+            return true;
+        }
+    }
+}
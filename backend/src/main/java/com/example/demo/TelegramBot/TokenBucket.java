@@ -0,0 +1,66 @@
+package com.example.demo.TelegramBot;
+
+/**
+ * Token bucket с резервированием: {@link #reserve(long)} всегда списывает токен
+ * и возвращает, сколько нужно подождать до отправки. Благодаря этому порядок
+ * сообщений одного чата сохраняется, даже если они откладываются.
+ */
+class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double ratePerSecond, double capacity, long nowNanos) {
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    synchronized long reserve(long nowNanos) {
+        refill(nowNanos);
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    /**
+     * Списывает токен, только если он есть.
+     */
+    synchronized boolean tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * Сколько ждать, пока появится целый токен; токен не списывается.
+     */
+    synchronized long waitNanos(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    synchronized boolean isIdle(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.demo.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -10,10 +12,18 @@ import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
+@RequiredArgsConstructor
 public class AsyncConfig implements AsyncConfigurer {
+    private final ThreadingConfig threadingConfig;
 
     @Override
     public Executor getAsyncExecutor() {
+        if (threadingConfig.isVirtualMode()) {
+            return new TaskExecutorAdapter(new BoundedExecutor(
+                    ThreadingConfig.newVirtualThreadPerTaskExecutor("Async-"),
+                    threadingConfig.getMaxConcurrency()));
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(4);
         executor.setMaxPoolSize(16);
@@ -26,4 +36,4 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+}
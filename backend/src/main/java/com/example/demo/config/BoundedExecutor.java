@@ -0,0 +1,68 @@
+package com.example.demo.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает число одновременно выполняемых и ожидающих задач.
+ * <p>
+ * acquireTimeoutMs &lt; 0 - когда лимит исчерпан, вызывающий поток ждет свободного слота: это дает
+ * обратное давление источнику (long polling перестает забирать обновления) вместо бесконечного роста очереди.
+ * acquireTimeoutMs &gt;= 0 - ждет не дольше таймаута (0 - не ждет), затем RejectedExecutionException:
+ * для потоков HTTP-запросов (webhook), которые нельзя держать.
+ */
+public class BoundedExecutor implements Executor {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMs;
+
+    public BoundedExecutor(ExecutorService delegate, int maxConcurrency) {
+        this(delegate, maxConcurrency, -1);
+    }
+
+    public BoundedExecutor(ExecutorService delegate, int maxConcurrency, long acquireTimeoutMs) {
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        try {
+            if (acquireTimeoutMs < 0) {
+                permits.acquire();
+            } else if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("All " + maxConcurrency + " slots are busy");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a free slot", e);
+        }
+
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getInFlight() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Простой circuit breaker для вызовов внешних API.
+ * <p>
+ * После failureThreshold подряд неудачных вызовов цепь размыкается, и вызовы сразу завершаются
+ * {@link OpenException}, не занимая поток и соединение. Через openDurationMs пропускается один
+ * пробный вызов: успех замыкает цепь, ошибка снова размыкает ее.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final Predicate<Throwable> recordFailure;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs, Predicate<Throwable> recordFailure) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.recordFailure = recordFailure;
+    }
+
+    public <T> T call(Supplier<T> action) {
+        acquirePermission();
+        try {
+            T result = action.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (recordFailure.test(e)) {
+                onFailure(e);
+            } else {
+                onSuccess();
+            }
+            throw e;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private synchronized void acquirePermission() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+            state = State.HALF_OPEN;
+            log.info("Circuit breaker {} half-open, sending trial call", name);
+            return;
+        }
+        // В HALF_OPEN пробный вызов уже в работе, остальные отклоняются до его результата
+        throw new OpenException(name);
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit breaker {} closed", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure(Throwable error) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            log.warn("Circuit breaker {} opened after {} failures: {}", name, consecutiveFailures, error.getMessage());
+        }
+    }
+
+    public static class OpenException extends RuntimeException {
+        public OpenException(String name) {
+            super("Circuit breaker " + name + " is open");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Компактный сериализатор значений RedisTemplate.
+ * <p>
+ * Строки (id сессий в user:current:session:* и user:active:sessions:*) пишутся как есть в UTF-8,
+ * остальные значения - маркер 0x00 и JSON с типом. Значения, записанные JdkSerializationRedisSerializer,
+ * узнаются по заголовку потока 0xACED и читаются JDK-десериализацией.
+ * <p>
+ * Читаются оба формата, пишется один: с legacyWrites = true - JDK-формат, который понимают и прежние версии.
+ * Поэтому переход идет в два выката: сначала все инстансы получают чтение обоих форматов при записи в JDK
+ * (app.redis.serializer=jdk), и только после этого запись переключается на compact. Прежние версии компактные
+ * значения не читают, поэтому откат после второго шага возможен только на версию с этим классом.
+ * Оставшиеся JDK-значения переписывает {@link RedisSerializationMigration}.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+    private static final byte JSON_MARKER = 0x00;
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    private final RedisSerializer<Object> json;
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+    private final boolean legacyWrites;
+
+    public CompactRedisSerializer() {
+        this(false);
+    }
+
+    public CompactRedisSerializer(boolean legacyWrites) {
+        this.legacyWrites = legacyWrites;
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        mapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        this.json = new GenericJackson2JsonRedisSerializer(mapper);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (legacyWrites) {
+            return jdk.serialize(value);
+        }
+        if (value instanceof String string) {
+            return string.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] body = json.serialize(value);
+        byte[] bytes = new byte[body.length + 1];
+        bytes[0] = JSON_MARKER;
+        System.arraycopy(body, 0, bytes, 1, body.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (isJdkSerialized(bytes)) {
+            return jdk.deserialize(bytes);
+        }
+        if (bytes[0] == JSON_MARKER) {
+            byte[] body = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, body, 0, body.length);
+            return json.deserialize(body);
+        }
+        // Остальное - строка: UTF-8 не начинается с байта 0xAC, а символ U+0000 в строковых значениях не используется
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static boolean isJdkSerialized(byte[] bytes) {
+        return bytes != null && bytes.length >= 2 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Запись журнала одной строкой JSON: время, уровень, логгер, поток, сообщение, поля MDC
+ * (userId, orderId, sessionId - см. LogContext) и стек исключения.
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"@timestamp\":\"").append(Instant.ofEpochMilli(event.getTimeStamp())).append('"');
+        field(json, "level", event.getLevel().toString());
+        field(json, "logger", event.getLoggerName());
+        field(json, "thread", event.getThreadName());
+        field(json, "message", event.getFormattedMessage());
+
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null) {
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                if (entry.getValue() != null) {
+                    field(json, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            field(json, "exception", ThrowableProxyUtil.asString(throwable));
+        }
+        return json.append("}\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        json.append(",\"");
+        escape(json, name);
+        json.append("\":\"");
+        escape(json, value);
+        json.append('"');
+    }
+
+    private static void escape(StringBuilder json, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выполняет задачи с одинаковым ключом строго последовательно и в порядке поступления,
+ * задачи с разными ключами - параллельно на общем исполнителе.
+ * <p>
+ * На ключ в исполнителе занят максимум один поток: он выполняет задачи очереди ключа
+ * одну за другой и освобождается, когда очередь опустела.
+ * <p>
+ * Очередь ключа ограничена maxQueuedPerKey ожидающими задачами: один шумный ключ не может
+ * занять память без предела, его лишние задачи отбрасываются (execute возвращает false).
+ * <p>
+ * Если исполнитель не принял очередь нового ключа, вызывающий получает RejectedExecutionException,
+ * а задачи, которые другие вызовы успели поставить в ту же очередь, считаются потерянными (getLostTasks)
+ * и пишутся в журнал с уровнем ERROR.
+ */
+@Slf4j
+public class KeyedExecutor {
+    public static final int DEFAULT_MAX_QUEUED_PER_KEY = 100;
+
+    private final Executor delegate;
+    private final int maxQueuedPerKey;
+    private final ConcurrentHashMap<Object, KeyQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong lost = new AtomicLong();
+
+    public KeyedExecutor(Executor delegate) {
+        this(delegate, DEFAULT_MAX_QUEUED_PER_KEY);
+    }
+
+    public KeyedExecutor(Executor delegate, int maxQueuedPerKey) {
+        this.delegate = delegate;
+        this.maxQueuedPerKey = maxQueuedPerKey;
+    }
+
+    /**
+     * @return false, если очередь ключа заполнена и задача отброшена
+     * @throws RejectedExecutionException если исполнитель не принял очередь нового ключа
+     */
+    public boolean execute(Object key, Runnable task) {
+        KeyQueue[] toStart = new KeyQueue[1];
+        boolean[] accepted = new boolean[1];
+        queues.compute(key, (k, queue) -> {
+            if (queue == null) {
+                queue = new KeyQueue();
+                toStart[0] = queue;
+            } else if (queue.size.get() >= maxQueuedPerKey) {
+                return queue;
+            }
+            queue.tasks.add(task);
+            queue.size.incrementAndGet();
+            accepted[0] = true;
+            return queue;
+        });
+        if (!accepted[0]) {
+            return false;
+        }
+        queued.incrementAndGet();
+
+        if (toStart[0] != null) {
+            KeyQueue queue = toStart[0];
+            try {
+                delegate.execute(() -> drain(key, queue));
+            } catch (RejectedExecutionException e) {
+                // Очередь еще не запущена; снимаем ее под lock'ом ключа вместе со всем, что в нее успели добавить
+                int[] removed = new int[1];
+                queues.compute(key, (k, current) -> {
+                    if (current != queue) {
+                        return current;
+                    }
+                    removed[0] = queue.size.get();
+                    queue.tasks.clear();
+                    return null;
+                });
+                queued.addAndGet(-removed[0]);
+                int others = removed[0] - 1;
+                if (others > 0) {
+                    lost.addAndGet(others);
+                    log.error("Executor rejected queue of key {}: {} tasks accepted from other callers are lost",
+                            key, others, e);
+                }
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    private void drain(Object key, KeyQueue queue) {
+        while (true) {
+            Runnable task = queue.tasks.poll();
+            queue.size.decrementAndGet();
+            queued.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.error("Task for key {} failed: {}", key, t.getMessage(), t);
+            }
+
+            // Очередь удаляется под тем же lock'ом ConcurrentHashMap, под которым добавляются задачи
+            boolean[] more = new boolean[1];
+            queues.compute(key, (k, current) -> {
+                if (current.tasks.isEmpty()) {
+                    return null;
+                }
+                more[0] = true;
+                return current;
+            });
+            if (!more[0]) {
+                return;
+            }
+        }
+    }
+
+    public int getActiveKeys() {
+        return queues.size();
+    }
+
+    public int getQueuedTasks() {
+        return queued.get();
+    }
+
+    /**
+     * Задачи, принятые execute (true), но не выполненные: исполнитель отклонил запуск очереди их ключа.
+     */
+    public long getLostTasks() {
+        return lost.get();
+    }
+
+    public int getQueueDepth(Object key) {
+        KeyQueue queue = queues.get(key);
+        return queue != null ? queue.size.get() : 0;
+    }
+
+    /**
+     * Ключи с самыми длинными очередями (ожидающие задачи без учета выполняемой).
+     */
+    public Map<String, Integer> getTopQueueDepths(int limit) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        queues.entrySet().stream()
+                .map(entry -> Map.entry(String.valueOf(entry.getKey()), entry.getValue().size.get()))
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    private static final class KeyQueue {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // Размер отдельно: ConcurrentLinkedQueue.size() обходит всю очередь
+        private final AtomicInteger size = new AtomicInteger();
+    }
+}
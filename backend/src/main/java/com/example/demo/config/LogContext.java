@@ -0,0 +1,24 @@
+package com.example.demo.config;
+
+import org.slf4j.MDC;
+
+/**
+ * Ключи MDC, которые JsonLogEncoder выводит отдельными полями записи.
+ * Значение снимается в finally: LogContext.put(ORDER_ID, id); try { ... } finally { LogContext.remove(ORDER_ID); }
+ */
+public final class LogContext {
+    public static final String USER_ID = "userId";
+    public static final String ORDER_ID = "orderId";
+    public static final String SESSION_ID = "sessionId";
+
+    private LogContext() {
+    }
+
+    public static void put(String key, Object value) {
+        MDC.put(key, value != null ? value.toString() : null);
+    }
+
+    public static void remove(String key) {
+        MDC.remove(key);
+    }
+}
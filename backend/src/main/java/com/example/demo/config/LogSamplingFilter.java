@@ -0,0 +1,57 @@
+package com.example.demo.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выборка построчных записей: для перечисленных логгеров (и их потомков) из записей уровня level и ниже
+ * в журнал попадает каждая rate-я, отдельно по каждому логгеру. Остальные уровни и логгеры не затрагиваются.
+ * Настраивается в logback-spring.xml; rate=1 пропускает все записи.
+ */
+public class LogSamplingFilter extends TurboFilter {
+    private final List<String> loggers = new ArrayList<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private Level level = Level.DEBUG;
+    private int rate = 1;
+
+    public void addLogger(String logger) {
+        loggers.add(logger);
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.DEBUG);
+    }
+
+    public void setRate(int rate) {
+        this.rate = Math.max(1, rate);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format == null - проверка isDebugEnabled(), ее не выбираем
+        if (rate == 1 || format == null || !isStarted() || level.toInt() > this.level.toInt()
+                || level.toInt() < logger.getEffectiveLevel().toInt() || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        long count = counters.computeIfAbsent(logger.getName(), name -> new AtomicLong()).getAndIncrement();
+        return count % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean matches(String name) {
+        for (String logger : loggers) {
+            if (name.equals(logger) || name.startsWith(logger) && name.charAt(logger.length()) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
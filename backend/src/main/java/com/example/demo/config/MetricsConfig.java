@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import com.example.demo.TelegramBot.OutboundMessageDispatcher;
+import com.example.demo.TelegramBot.TelegramRetryQueue;
+import com.example.demo.service.OrderEventHub;
+import com.example.demo.service.OrderOutbox;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Метрики для /actuator/prometheus.
+ * <p>
+ * Таймеры горячих путей регистрируются в самих компонентах (bot.updates, telegram.api.requests,
+ * orders.fanout, tinkoff.requests) и через @Timed (chat.operations). Здесь - @Timed и gauge глубины очередей.
+ * Число обращений к Redis на операцию ChatService считает RedisRoundTrips (chat.redis.roundtrips),
+ * задержки отдельных команд Redis публикует Lettuce (lettuce.command.completion).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder queueMetrics(KeyedExecutor telegramUpdateQueue, BoundedExecutor telegramUpdateExecutor,
+                                    OutboundMessageDispatcher outboundDispatcher, TelegramRetryQueue retryQueue,
+                                    OrderOutbox orderOutbox, OrderEventHub orderEventHub) {
+        return registry -> {
+            Gauge.builder("bot.updates.queued", telegramUpdateQueue, KeyedExecutor::getQueuedTasks)
+                    .description("Updates waiting in per-chat queues")
+                    .register(registry);
+            FunctionCounter.builder("bot.updates.lost", telegramUpdateQueue, KeyedExecutor::getLostTasks)
+                    .description("Updates accepted into a chat queue whose start was rejected by the executor")
+                    .register(registry);
+            Gauge.builder("bot.updates.active.chats", telegramUpdateQueue, KeyedExecutor::getActiveKeys)
+                    .description("Chats with queued or running updates")
+                    .register(registry);
+            Gauge.builder("bot.updates.in.flight", telegramUpdateExecutor, BoundedExecutor::getInFlight)
+                    .description("Updates being processed")
+                    .register(registry);
+            Gauge.builder("telegram.outbound.queued", outboundDispatcher, OutboundMessageDispatcher::getQueueSize)
+                    .description("Telegram calls waiting for rate-limit tokens")
+                    .register(registry);
+            // ZCARD в Redis на каждый опрос метрик
+            Gauge.builder("telegram.retry.queued", retryQueue, TelegramRetryQueue::getQueueSize)
+                    .description("Telegram sends waiting for a delayed retry")
+                    .register(registry);
+            Gauge.builder("orders.outbox.in.flight", orderOutbox, OrderOutbox::getInFlight)
+                    .description("Outbox events handed to handlers and not yet finished")
+                    .register(registry);
+            Gauge.builder("orders.outbox.exhausted", orderOutbox, OrderOutbox::getExhausted)
+                    .description("Outbox events that used up all attempts and will not be retried")
+                    .register(registry);
+            Gauge.builder("orders.sse.subscribers", orderEventHub, OrderEventHub::getSubscriberCount)
+                    .description("Open SSE order streams")
+                    .register(registry);
+        };
+    }
+}
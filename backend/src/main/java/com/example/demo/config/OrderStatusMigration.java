@@ -0,0 +1,64 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.OrderStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.StringJoiner;
+
+/**
+ * Переводит orders.status из строк ("в поиске", ...) в smallint-коды OrderStatus и создает
+ * частичные индексы открытых заказов (JPA @Index их описать не может).
+ * <p>
+ * Выполняется после обновления схемы Hibernate и до старта веб-сервера. Повторный запуск ничего не меняет.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class OrderStatusMigration {
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderStatusMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        try {
+            String columnType = jdbcTemplate.query(
+                    "select data_type from information_schema.columns where table_name = 'orders' and column_name = 'status'",
+                    rs -> rs.next() ? rs.getString(1) : null);
+            if (columnType != null && !"smallint".equals(columnType)) {
+                convertStatusColumn();
+            }
+
+            jdbcTemplate.execute("create index if not exists idx_orders_open_category_created_at " +
+                    "on orders (category, created_at desc, id desc) where status = " + OrderStatus.OPEN.getCode());
+            jdbcTemplate.execute("create index if not exists idx_orders_open_created_at " +
+                    "on orders (created_at desc, id desc) where status = " + OrderStatus.OPEN.getCode());
+        } catch (DataAccessException e) {
+            log.error("Order status migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void convertStatusColumn() {
+        StringBuilder mapping = new StringBuilder("case status");
+        StringJoiner labels = new StringJoiner(", ");
+        for (OrderStatus status : OrderStatus.values()) {
+            mapping.append(" when '").append(status.getLegacyLabel()).append("' then ").append(status.getCode());
+            labels.add("'" + status.getLegacyLabel() + "'");
+        }
+        // Прочие строки, записанные через свободный ввод статуса, считаются заказами в работе
+        mapping.append(" else ").append(OrderStatus.ACCEPTED.getCode()).append(" end");
+
+        Integer unknown = jdbcTemplate.queryForObject(
+                "select count(*) from orders where status not in (" + labels + ")", Integer.class);
+        jdbcTemplate.execute("alter table orders alter column status type smallint using (" + mapping + ")::smallint");
+        log.info("Order status column converted to smallint codes, {} unknown statuses mapped to {}",
+                unknown, OrderStatus.ACCEPTED);
+    }
+}
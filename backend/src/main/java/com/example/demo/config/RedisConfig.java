@@ -1,26 +1,117 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.RedisCustomConversions;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 
 @Configuration
 public class RedisConfig {
 
+    // Формат записи: jdk - прежний, compact - CompactRedisSerializer. Читаются оба, см. CompactRedisSerializer
+    @Value("${app.redis.serializer:jdk}")
+    private String serializer;
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        RedisTemplate<String, Object> template = new RedisTemplate<>() {
+            @Override
+            protected RedisConnection preProcessConnection(RedisConnection connection, boolean existingConnection) {
+                RedisRoundTrips.record();
+                return super.preProcessConnection(connection, existingConnection);
+            }
+        };
         template.setConnectionFactory(connectionFactory);
 
+        RedisSerializer<Object> valueSerializer = valueSerializer(serializer);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new JdkSerializationRedisSerializer());
+        template.setValueSerializer(valueSerializer);
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(new JdkSerializationRedisSerializer());
+        template.setHashValueSerializer(valueSerializer);
         template.setEnableTransactionSupport(false);
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    // Вместо автоконфигурации Spring Boot - чтобы вызовы попадали в RedisRoundTrips
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(connectionFactory) {
+            @Override
+            protected RedisConnection preProcessConnection(RedisConnection connection, boolean existingConnection) {
+                RedisRoundTrips.record();
+                return super.preProcessConnection(connection, existingConnection);
+            }
+        };
+    }
+
+    // Подписки на Redis pub/sub (рассылка событий заказов между инстансами)
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    public static RedisSerializer<Object> valueSerializer(String name) {
+        return new CompactRedisSerializer(isLegacy(name));
+    }
+
+    public static boolean isLegacy(String name) {
+        return !"compact".equalsIgnoreCase(name);
+    }
+
+    // Конвертеры полей @RedisHash-сущностей (ChatSession), подхватываются по имени бина redisCustomConversions.
+    // Epoch millis читаются всегда, а пишутся только в режиме compact: прежние версии их не разбирают
+    @Bean
+    public RedisCustomConversions redisCustomConversions() {
+        if (isLegacy(serializer)) {
+            return new RedisCustomConversions(List.of(new BytesToLocalDateTimeConverter()));
+        }
+        return new RedisCustomConversions(List.of(
+                new LocalDateTimeToBytesConverter(),
+                new BytesToLocalDateTimeConverter()));
+    }
+
+    /**
+     * LocalDateTime хранится как epoch millis (13 байт) вместо ISO-строки с наносекундами (до 29 байт).
+     */
+    @WritingConverter
+    public static class LocalDateTimeToBytesConverter implements Converter<LocalDateTime, byte[]> {
+        @Override
+        public byte[] convert(LocalDateTime source) {
+            return Long.toString(source.toInstant(ZoneOffset.UTC).toEpochMilli()).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Читает epoch millis и ISO-строки, записанные до перехода на компактный формат.
+     */
+    @ReadingConverter
+    public static class BytesToLocalDateTimeConverter implements Converter<byte[], LocalDateTime> {
+        @Override
+        public LocalDateTime convert(byte[] source) {
+            String value = new String(source, StandardCharsets.US_ASCII);
+            if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(value)), ZoneOffset.UTC);
+            }
+            return LocalDateTime.parse(value);
+        }
+    }
+}
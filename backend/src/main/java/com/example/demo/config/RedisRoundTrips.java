@@ -0,0 +1,74 @@
+package com.example.demo.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+/**
+ * Число обращений к Redis за одну операцию ChatService (метрика chat.redis.roundtrips с тегом operation).
+ * <p>
+ * Обращение - один вызов RedisTemplate/StringRedisTemplate (см. RedisConfig): одна команда, pipeline
+ * или Lua-скрипт считаются одним round-trip'ом. Сохранение через репозиторий - тоже один вызов, хотя
+ * Spring Data Redis выполняет в нем несколько команд. Счет идет в потоке операции; операцией считается
+ * метод с @Timed("chat.operations"), вызовы через прокси внутри нее добавляются к внешней операции.
+ */
+@Aspect
+@Component
+public class RedisRoundTrips {
+    public static final String CHAT_OPERATIONS = "chat.operations";
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public RedisRoundTrips(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    static void record() {
+        int[] counter = CURRENT.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+    }
+
+    @Around("@annotation(timed)")
+    public Object count(ProceedingJoinPoint point, Timed timed) throws Throwable {
+        if (!CHAT_OPERATIONS.equals(timed.value())) {
+            return point.proceed();
+        }
+        int[] outer = CURRENT.get();
+        int[] counter = new int[1];
+        CURRENT.set(counter);
+        try {
+            return point.proceed();
+        } finally {
+            if (outer != null) {
+                outer[0] += counter[0];
+                CURRENT.set(outer);
+            } else {
+                CURRENT.remove();
+            }
+            DistributionSummary.builder("chat.redis.roundtrips")
+                    .description("Redis round-trips per ChatService operation")
+                    .tag("operation", operation(point, timed))
+                    .register(meterRegistry)
+                    .record(counter[0]);
+        }
+    }
+
+    private static String operation(ProceedingJoinPoint point, Timed timed) {
+        String[] tags = timed.extraTags();
+        for (int i = 0; i + 1 < tags.length; i += 2) {
+            if ("operation".equals(tags[i])) {
+                return tags[i + 1];
+            }
+        }
+        return ((MethodSignature) point.getSignature()).getMethod().getName();
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.ChatSession;
+import com.example.demo.repository.ChatSessionRepository;
+import com.example.demo.service.ChatSessionCache;
+import com.example.demo.service.ChatSessionTransitions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Переводит индексы user:active:sessions:* из списков в sorted set, а в режиме app.redis.serializer=compact
+ * перезаписывает в компактном формате значения и элементы индексов, сохраненные JdkSerializationRedisSerializer.
+ * <p>
+ * Чтение старых значений работает и без миграции, но ZREM/сравнение по значению находит только
+ * элементы в текущем формате. Список заменяется sorted set'ом со score = lastActivity сессии
+ * (новый ключ собирается рядом и переименовывается поверх старого, TTL сохраняется);
+ * сессии, которых уже нет, в индекс не переносятся.
+ * <p>
+ * Индекс ChatSession:participantStatuses:* появился позже самих сессий: активные сессии, сохраненные
+ * прежней версией, пересохраняются через репозиторий, иначе поиск существующего чата по заказу их не видит
+ * и повторное принятие заказа открывает второй чат.
+ * <p>
+ * Миграция разовая на весь Redis, а не на инстанс: шаги выполняет тот инстанс, что взял блокировку
+ * migration:redis:lock, выполненный шаг отмечается в hash migration:redis и больше не запускается.
+ * Остальные инстансы при занятой блокировке миграцию пропускают. Перевод списков в sorted set несовместим
+ * с прежней версией (RPUSH/LREM по ключу-zset дают WRONGTYPE), поэтому выкат этой версии не rolling:
+ * инстансы прежней версии останавливаются до старта первого нового.
+ */
+@Slf4j
+@Component
+public class RedisSerializationMigration {
+    private static final String USER_CURRENT_SESSION_PATTERN = "user:current:session:*";
+    private static final String USER_ACTIVE_SESSIONS_PATTERN = "user:active:sessions:*";
+    private static final String SESSION_KEY = "ChatSession:";
+    private static final byte[] LOCK_KEY = "migration:redis:lock".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MARKER_KEY = "migration:redis".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ACTIVE_SESSIONS_ZSET_STEP = "active-sessions-zset".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] COMPACT_VALUES_STEP = "compact-values".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PARTICIPANT_STATUS_STEP = "participant-status-index".getBytes(StandardCharsets.UTF_8);
+    // Множество id всех сессий, которое ведет Spring Data Redis
+    private static final byte[] SESSION_IDS_KEY = "ChatSession".getBytes(StandardCharsets.UTF_8);
+    private static final long LOCK_TTL_MS = TimeUnit.MINUTES.toMillis(10);
+    // Снимает блокировку, только если она все еще наша (могла истечь и достаться другому инстансу)
+    private static final byte[] UNLOCK_SCRIPT = ("if redis.call('GET', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('DEL', KEYS[1]) else return 0 end").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LAST_ACTIVITY_FIELD = "lastActivity".getBytes(StandardCharsets.UTF_8);
+
+    private static final RedisConfig.BytesToLocalDateTimeConverter LAST_ACTIVITY_CONVERTER =
+            new RedisConfig.BytesToLocalDateTimeConverter();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatSessionCache sessionCache;
+
+    @Value("${app.redis.serializer:jdk}")
+    private String serializer;
+
+    @Value("${app.redis.migrate-legacy-values:true}")
+    private boolean enabled;
+
+    public RedisSerializationMigration(RedisTemplate<String, Object> redisTemplate,
+                                       ChatSessionRepository chatSessionRepository, ChatSessionCache sessionCache) {
+        this.redisTemplate = redisTemplate;
+        this.chatSessionRepository = chatSessionRepository;
+        this.sessionCache = sessionCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                migrate(connection);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Redis migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void migrate(RedisConnection connection) {
+        boolean compactValues = !RedisConfig.isLegacy(serializer);
+        if (isDone(connection, ACTIVE_SESSIONS_ZSET_STEP) && isDone(connection, PARTICIPANT_STATUS_STEP)
+                && (!compactValues || isDone(connection, COMPACT_VALUES_STEP))) {
+            return;
+        }
+        byte[] token = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        Boolean locked = connection.stringCommands().set(LOCK_KEY, token,
+                Expiration.milliseconds(LOCK_TTL_MS), RedisStringCommands.SetOption.ifAbsent());
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("Redis migration is running on another instance, skipping");
+            return;
+        }
+        try {
+            int indexes = 0;
+            int values = 0;
+            int sessions = 0;
+            if (!isDone(connection, ACTIVE_SESSIONS_ZSET_STEP)) {
+                indexes = migrateActiveSessionLists(connection);
+                markDone(connection, ACTIVE_SESSIONS_ZSET_STEP);
+            }
+            if (!isDone(connection, PARTICIPANT_STATUS_STEP)) {
+                sessions = indexParticipantStatuses(connection);
+                markDone(connection, PARTICIPANT_STATUS_STEP);
+            }
+            if (compactValues && !isDone(connection, COMPACT_VALUES_STEP)) {
+                values = migrateValues(connection);
+                markDone(connection, COMPACT_VALUES_STEP);
+            }
+            log.info("Redis migration finished: {} values rewritten, {} active session lists converted, "
+                    + "{} active sessions indexed by participant status", values, indexes, sessions);
+        } finally {
+            connection.scriptingCommands().eval(UNLOCK_SCRIPT, ReturnType.INTEGER, 1, LOCK_KEY, token);
+        }
+    }
+
+    private boolean isDone(RedisConnection connection, byte[] step) {
+        return Boolean.TRUE.equals(connection.hashCommands().hExists(MARKER_KEY, step));
+    }
+
+    private void markDone(RedisConnection connection, byte[] step) {
+        connection.hashCommands().hSet(MARKER_KEY, step,
+                Instant.now().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int migrateValues(RedisConnection connection) {
+        int migrated = 0;
+        try (Cursor<byte[]> keys = scan(connection, USER_CURRENT_SESSION_PATTERN)) {
+            while (keys.hasNext()) {
+                byte[] key = keys.next();
+                byte[] value = connection.stringCommands().get(key);
+                if (CompactRedisSerializer.isJdkSerialized(value)) {
+                    connection.stringCommands().set(key, reencode(value), Expiration.keepTtl(),
+                            RedisStringCommands.SetOption.upsert());
+                    migrated++;
+                }
+            }
+        }
+        try (Cursor<byte[]> keys = scan(connection, USER_ACTIVE_SESSIONS_PATTERN)) {
+            while (keys.hasNext()) {
+                byte[] key = keys.next();
+                if (connection.keyCommands().type(key) != DataType.ZSET) {
+                    continue;
+                }
+                Set<Tuple> members = connection.zSetCommands().zRangeWithScores(key, 0, -1);
+                for (Tuple member : members != null ? members : Set.<Tuple>of()) {
+                    if (CompactRedisSerializer.isJdkSerialized(member.getValue())) {
+                        connection.zSetCommands().zAdd(key, member.getScore(), reencode(member.getValue()),
+                                RedisZSetCommands.ZAddArgs.empty());
+                        connection.zSetCommands().zRem(key, member.getValue());
+                        migrated++;
+                    }
+                }
+            }
+        }
+        return migrated;
+    }
+
+    // Пересохранение пересчитывает participantStatuses. Поиск по индексу идет только среди активных сессий,
+    // поэтому закрытые не трогаем; сохраненные уже новой версией пропускаются
+    private int indexParticipantStatuses(RedisConnection connection) {
+        int indexed = 0;
+        try (Cursor<byte[]> ids = connection.setCommands().sScan(SESSION_IDS_KEY,
+                ScanOptions.scanOptions().count(500).build())) {
+            while (ids.hasNext()) {
+                String sessionId = new String(ids.next(), StandardCharsets.UTF_8);
+                ChatSession session = chatSessionRepository.findById(sessionId).orElse(null);
+                if (session == null || !"ACTIVE".equals(session.getStatus()) || !session.getParticipantStatuses().isEmpty()) {
+                    continue;
+                }
+                sessionCache.save(session);
+                indexed++;
+            }
+        }
+        return indexed;
+    }
+
+    private int migrateActiveSessionLists(RedisConnection connection) {
+        int migrated = 0;
+        try (Cursor<byte[]> keys = scan(connection, USER_ACTIVE_SESSIONS_PATTERN)) {
+            while (keys.hasNext()) {
+                byte[] key = keys.next();
+                if (connection.keyCommands().type(key) != DataType.LIST) {
+                    continue;
+                }
+                convertToSortedSet(connection, key);
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    private void convertToSortedSet(RedisConnection connection, byte[] key) {
+        List<byte[]> elements = connection.listCommands().lRange(key, 0, -1);
+        Long ttlMs = connection.keyCommands().pTtl(key);
+        byte[] tmpKey = (new String(key, StandardCharsets.UTF_8) + ":migrating").getBytes(StandardCharsets.UTF_8);
+
+        Set<Tuple> tuples = new LinkedHashSet<>();
+        for (byte[] element : elements != null ? elements : List.<byte[]>of()) {
+            Object sessionId = valueSerializer().deserialize(element);
+            byte[] lastActivity = connection.hashCommands()
+                    .hGet((SESSION_KEY + sessionId).getBytes(StandardCharsets.UTF_8), LAST_ACTIVITY_FIELD);
+            if (lastActivity == null) {
+                continue;
+            }
+            double score = ChatSessionTransitions.activityScore(LAST_ACTIVITY_CONVERTER.convert(lastActivity));
+            tuples.add(new DefaultTuple(valueSerializer().serialize(sessionId), score));
+        }
+
+        if (tuples.isEmpty()) {
+            connection.keyCommands().del(key);
+            return;
+        }
+        connection.keyCommands().del(tmpKey);
+        connection.zSetCommands().zAdd(tmpKey, tuples, RedisZSetCommands.ZAddArgs.empty());
+        if (ttlMs != null && ttlMs > 0) {
+            connection.keyCommands().pExpire(tmpKey, ttlMs);
+        }
+        connection.keyCommands().rename(tmpKey, key);
+    }
+
+    private Cursor<byte[]> scan(RedisConnection connection, String pattern) {
+        return connection.keyCommands().scan(ScanOptions.scanOptions().match(pattern).count(500).build());
+    }
+
+    private byte[] reencode(byte[] legacy) {
+        return valueSerializer().serialize(valueSerializer().deserialize(legacy));
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Исполнители для блокирующей обработки (обновления Telegram, @Async).
+ * <p>
+ * app.threads.mode=platform - фиксированный пул платформенных потоков (как раньше),
+ * app.threads.mode=virtual - виртуальный поток на задачу (нужна JVM 21, сборка с -PjavaVersion=21).
+ * В обоих режимах число задач в работе ограничено app.threads.max-concurrency.
+ * В webhook-режиме обновления ставит поток HTTP-запроса: при исчерпанном лимите он не ждет,
+ * обновление отклоняется (429, Telegram повторит доставку). В polling-режиме ждет поток long polling.
+ */
+@Configuration
+public class ThreadingConfig {
+
+    @Value("${app.threads.mode:platform}")
+    private String mode;
+
+    @Value("${app.threads.platform.pool-size:8}")
+    private int platformPoolSize;
+
+    @Value("${app.threads.max-concurrency:256}")
+    private int maxConcurrency;
+
+    @Value("${app.threads.max-queued-per-chat:100}")
+    private int maxQueuedPerChat;
+
+    @Value("${telegram.bot.mode:polling}")
+    private String botMode;
+
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutor telegramUpdateExecutor() {
+        long acquireTimeoutMs = "webhook".equalsIgnoreCase(botMode) ? 0 : -1;
+        return createExecutor(mode, "tg-update-", platformPoolSize, maxConcurrency, acquireTimeoutMs);
+    }
+
+    // Обновления одного чата обрабатываются по порядку, разных чатов - параллельно
+    @Bean
+    public KeyedExecutor telegramUpdateQueue(BoundedExecutor telegramUpdateExecutor) {
+        return new KeyedExecutor(telegramUpdateExecutor, maxQueuedPerChat);
+    }
+
+    public boolean isVirtualMode() {
+        return "virtual".equalsIgnoreCase(mode);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public static BoundedExecutor createExecutor(String mode, String threadPrefix, int platformPoolSize, int maxConcurrency) {
+        return createExecutor(mode, threadPrefix, platformPoolSize, maxConcurrency, -1);
+    }
+
+    public static BoundedExecutor createExecutor(String mode, String threadPrefix, int platformPoolSize,
+                                                 int maxConcurrency, long acquireTimeoutMs) {
+        ExecutorService delegate = "virtual".equalsIgnoreCase(mode)
+                ? newVirtualThreadPerTaskExecutor(threadPrefix)
+                : Executors.newFixedThreadPool(platformPoolSize, platformThreadFactory(threadPrefix));
+        return new BoundedExecutor(delegate, maxConcurrency, acquireTimeoutMs);
+    }
+
+    // Проект компилируется и под Java 17, поэтому API виртуальных потоков вызывается через reflection
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String threadPrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadPrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21+, current runtime: "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String threadPrefix) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> new Thread(runnable, threadPrefix + counter.incrementAndGet());
+    }
+}
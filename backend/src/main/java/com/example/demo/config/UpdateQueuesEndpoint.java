@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/updatequeues - глубина очередей обработки обновлений по чатам.
+ * /actuator/updatequeues/{chatId} - глубина очереди конкретного чата.
+ */
+@Component
+@Endpoint(id = "updatequeues")
+@RequiredArgsConstructor
+public class UpdateQueuesEndpoint {
+    private static final int TOP_KEYS = 50;
+
+    private final KeyedExecutor telegramUpdateQueue;
+    private final BoundedExecutor telegramUpdateExecutor;
+
+    @ReadOperation
+    public Map<String, Object> queues() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("activeChats", telegramUpdateQueue.getActiveKeys());
+        result.put("queuedUpdates", telegramUpdateQueue.getQueuedTasks());
+        result.put("inFlight", telegramUpdateExecutor.getInFlight());
+        result.put("topChats", telegramUpdateQueue.getTopQueueDepths(TOP_KEYS));
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> queue(@Selector Long chatId) {
+        return Map.of("chatId", chatId, "queuedUpdates", telegramUpdateQueue.getQueueDepth(chatId));
+    }
+}
@@ -75,9 +75,12 @@ public class ChatController {
     }
 
     @GetMapping("/sessions/{userId}")
-    public ResponseEntity<List<ChatSession>> getUserSessions(@PathVariable Long userId) {
+    public ResponseEntity<List<ChatSession>> getUserSessions(@PathVariable Long userId,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "20") int size) {
         try {
-            List<ChatSession> sessions = chatService.getUserActiveSessions(userId);
+            int pageSize = Math.max(1, Math.min(size, 100));
+            List<ChatSession> sessions = chatService.getUserActiveSessions(userId, (long) Math.max(page, 0) * pageSize, pageSize);
             return ResponseEntity.ok(sessions);
         } catch (Exception e) {
             log.error("Error getting user sessions", e);
@@ -1,18 +1,29 @@
 
 package com.example.demo.controller;
 
+import com.example.demo.config.LogContext;
+import com.example.demo.dto.NotificationStats;
+import com.example.demo.dto.OrderPage;
 import com.example.demo.dto.OrderRequest;
 import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderStatus;
+import com.example.demo.service.OrderEventHub;
 import com.example.demo.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -21,41 +32,67 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class OrderController {
     private final OrderService orderService;
+    private final OrderEventHub orderEventHub;
 
     @PostMapping("/request")
     public ResponseEntity<Order> createOrder(/*@Valid*/ @RequestBody OrderRequest request) {
-        System.out.println("=== CREATE ORDER REQUEST ===");
-        System.out.println("Telegram User ID: " + request.getTelegramUserId());
-        System.out.println("Telegram Username: " + request.getTelegramUsername());
-        System.out.println("University: " + request.getUniversity());
-        System.out.println("Subject: " + request.getSubject());
-        System.out.println("Description: " + request.getDescription());
-        System.out.println("Price: " + request.getPrice());
-
+        LogContext.put(LogContext.USER_ID, request.getTelegramUserId());
         try {
+            log.debug("Create order request: username {}, university {}, subject {}, category {}, price {}",
+                    request.getTelegramUsername(), request.getUniversity(), request.getSubject(),
+                    request.getCategory(), request.getPrice());
             Order order = orderService.createOrder(request);
-            System.out.println(" Order created successfully with ID: " + order.getId());
+            log.info("Order {} created", order.getId());
             return ResponseEntity.ok(order);
         } catch (Exception e) {
-            System.err.println(" Error creating order: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error creating order: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().build();
+        } finally {
+            LogContext.remove(LogContext.USER_ID);
         }
     }
 
     @PutMapping("/{orderId}/accept")
     public ResponseEntity<Order> acceptOrder(@PathVariable Long orderId, @RequestParam Long executorId) {
-
+        LogContext.put(LogContext.ORDER_ID, orderId);
+        LogContext.put(LogContext.USER_ID, executorId);
         try {
-            Order order = orderService.acceptOrder(orderId, executorId);
-            return ResponseEntity.ok(order);
-        }catch (Exception e) {
-            System.err.println(" Error accepting order: " + e.getMessage());
-            e.printStackTrace();
+            return ResponseEntity.ok(orderService.acceptOrder(orderId, executorId));
+        } catch (IllegalStateException e) {
+            // Заказ уже принят другим исполнителем
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            log.error("Error accepting order {} by executor {}: {}", orderId, executorId, e.getMessage(), e);
             return ResponseEntity.badRequest().build();
+        } finally {
+            LogContext.remove(LogContext.USER_ID);
+            LogContext.remove(LogContext.ORDER_ID);
         }
     }
 
+    /**
+     * Поток событий заказов: лента категории (category) и/или заказы пользователя (userId).
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderEvents(@RequestParam(required = false) String category,
+                                                        @RequestParam(required = false) Long userId) {
+        if (category == null && userId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(orderEventHub.subscribe(category, userId));
+        } catch (IllegalStateException e) {
+            log.warn("Rejecting order event subscription: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/{orderId}/notification-stats")
+    public ResponseEntity<NotificationStats> getNotificationStats(@PathVariable Long orderId) {
+        NotificationStats stats = orderService.getNotificationStats(orderId);
+        return stats != null ? ResponseEntity.ok(stats) : ResponseEntity.notFound().build();
+    }
+
     @GetMapping("/user/{telegramUserId}")
     public ResponseEntity<List<Order>> getOrdersByUser(@PathVariable Long telegramUserId) {
         List<Order> orders = orderService.getOrdersByUser(telegramUserId);
@@ -74,51 +111,139 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping("/user/{telegramUserId}/page")
+    public ResponseEntity<OrderPage> getOrdersPageByUser(@PathVariable Long telegramUserId,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") int size) {
+        return orderPage(() -> orderService.getUserOrdersPage(telegramUserId, null, cursor, pageSize(size)));
+    }
+
+    @GetMapping("/user/{telegramUserId}/active/page")
+    public ResponseEntity<OrderPage> getActiveOrdersPageByUser(@PathVariable Long telegramUserId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        return orderPage(() -> orderService.getUserOrdersPage(telegramUserId, OrderStatus.OPEN, cursor, pageSize(size)));
+    }
+
+    @GetMapping("/user/{telegramUserId}/completed/page")
+    public ResponseEntity<OrderPage> getCompletedOrdersPageByUser(@PathVariable Long telegramUserId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "20") int size) {
+        return orderPage(() -> orderService.getUserOrdersPage(telegramUserId, OrderStatus.COMPLETED, cursor, pageSize(size)));
+    }
+
+    @GetMapping("/active/page")
+    public ResponseEntity<OrderPage> getActiveOrdersPage(@RequestParam(required = false) String category,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") int size) {
+        return orderPage(() -> orderService.getOpenOrderSummaries(category, cursor, pageSize(size)));
+    }
+
+    private ResponseEntity<OrderPage> orderPage(Supplier<OrderPage> query) {
+        try {
+            return ResponseEntity.ok(query.get());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid order page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, 100));
+    }
+
     @GetMapping("/active")
-    public ResponseEntity<List<Order>> getAllActiveOrders() {
-        List<Order> orders = orderService.getAllActiveOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<Order>> getAllActiveOrders(@RequestParam(required = false) Integer page,
+                                                          @RequestParam(required = false) Integer size,
+                                                          WebRequest webRequest) {
+        return openOrdersFeed(null, null, page, size, webRequest);
     }
 
     @PutMapping("/{orderId}/status")
     public ResponseEntity<Order> updateOrderStatus(
             @PathVariable Long orderId,
             @RequestParam String status) {
-        Order order = orderService.updateOrderStatus(orderId, status);
-        return ResponseEntity.ok(order);
+        try {
+            Order order = orderService.updateOrderStatus(orderId, OrderStatus.parse(status));
+            return ResponseEntity.ok(order);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid status for order {}: {}", orderId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Rejected status change for order {}: {}", orderId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
 
 
     @DeleteMapping("/{orderId}")
     public ResponseEntity<Void> deleteOrder(@PathVariable Long orderId) {
-        System.out.println("=== DELETE ORDER REQUEST ===");
-        System.out.println("Received DELETE request for order ID: " + orderId);
-
+        LogContext.put(LogContext.ORDER_ID, orderId);
         try {
             orderService.deleteOrder(orderId);
-            System.out.println("Order deleted successfully: " + orderId);
+            log.info("Order {} deleted", orderId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
-            System.err.println("Error deleting order " + orderId + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error deleting order {}: {}", orderId, e.getMessage(), e);
             return ResponseEntity.badRequest().build();
+        } finally {
+            LogContext.remove(LogContext.ORDER_ID);
         }
     }
 
     @GetMapping("/active/category/{category}/{telegramUserId}")
-    public ResponseEntity<List<Order>> getActiveOrdersByCategory(@PathVariable String category,@PathVariable Long telegramUserId) {
-        System.out.println("=== GET ACTIVE ORDERS BY CATEGORY ===");
-        System.out.println("Category: " + category);
-
+    public ResponseEntity<List<Order>> getActiveOrdersByCategory(@PathVariable String category,@PathVariable Long telegramUserId,
+                                                                 @RequestParam(required = false) Integer page,
+                                                                 @RequestParam(required = false) Integer size,
+                                                                 WebRequest webRequest) {
         try {
-            List<Order> orders = orderService.getActiveOrdersByCategory(category,telegramUserId);
-            System.out.println("Found " + orders.size() + " orders for category: " + category);
-            return ResponseEntity.ok(orders);
+            return openOrdersFeed(category, telegramUserId, page, size, webRequest);
         } catch (Exception e) {
-            System.err.println("Error getting orders by category: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting orders by category {}: {}", category, e.getMessage(), e);
             return ResponseEntity.badRequest().build();
         }
     }
+
+    // Лента открытых заказов: повторный опрос с тем же If-None-Match получает 304 без тела
+    private ResponseEntity<List<Order>> openOrdersFeed(String category, Long excludeUserId,
+                                                       Integer page, Integer size, WebRequest webRequest) {
+        List<Order> orders;
+        if (page == null && size == null) {
+            orders = category == null
+                    ? orderService.getAllActiveOrders()
+                    : orderService.getActiveOrdersByCategory(category, excludeUserId);
+        } else {
+            int pageSize = Math.max(1, Math.min(size != null ? size : 20, 100));
+            orders = orderService.getOpenOrdersPage(category, excludeUserId, Math.max(page != null ? page : 0, 0), pageSize);
+        }
+        String etag = feedEtag(orders);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(orders);
+    }
+
+    // ETag по содержимому страницы, а не по счетчику инстанса: совпадает на всех инстансах и после перезапуска.
+    // Хеши строк и дат не зависят от JVM, статус берется по имени (hashCode enum у каждой JVM свой)
+    private static String feedEtag(List<Order> orders) {
+        long hash = 17;
+        for (Order order : orders) {
+            hash = 31 * hash + Objects.hashCode(order.getId());
+            hash = 31 * hash + Objects.hashCode(order.getTelegramUserId());
+            hash = 31 * hash + Objects.hashCode(order.getTelegramUsername());
+            hash = 31 * hash + Objects.hashCode(order.getUniversity());
+            hash = 31 * hash + Objects.hashCode(order.getSubject());
+            hash = 31 * hash + Objects.hashCode(order.getCategory());
+            hash = 31 * hash + Objects.hashCode(order.getDescription());
+            hash = 31 * hash + Objects.hashCode(order.getPrice());
+            hash = 31 * hash + (order.getStatus() != null ? order.getStatus().name().hashCode() : 0);
+            hash = 31 * hash + Objects.hashCode(order.getCreatedAt());
+            hash = 31 * hash + Objects.hashCode(order.getCompletedAt());
+            hash = 31 * hash + Objects.hashCode(order.getExecutorId());
+            hash = 31 * hash + Objects.hashCode(order.getPaymentId());
+            hash = 31 * hash + Objects.hashCode(order.getPaymentStatus());
+        }
+        return "\"orders-" + orders.size() + "-" + Long.toHexString(hash) + "\"";
+    }
 }
\ No newline at end of file
@@ -1,25 +1,17 @@
 
 package com.example.demo.controller;
 
-import com.example.demo.TelegramBot.TelegramBotService;
+import com.example.demo.config.CircuitBreaker;
 import com.example.demo.dto.*;
-import com.example.demo.entity.Executor;
-import com.example.demo.service.ExecutorService;
-import com.example.demo.service.OrderService;
+import com.example.demo.service.PaymentService;
+import com.example.demo.service.PaymentStatusService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 @Slf4j
 @RestController
@@ -27,41 +19,19 @@ import java.util.TreeMap;
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class PaymentController {
-    private final OrderService orderService;
-
-    @org.springframework.beans.factory.annotation.Value("${tinkoff.terminal.key:}")
-    private String terminalKey;
-
-    @org.springframework.beans.factory.annotation.Value("${tinkoff.terminal.password:}")
-    private String terminalPassword;
-
-    private final TelegramBotService telegramBotService;
+    private final PaymentService paymentService;
+    private final PaymentStatusService paymentStatusService;
 
     @PostMapping("/create-payment-link")
     public ResponseEntity<?> createPaymentLink(@Valid @RequestBody PaymentRequest request) {
         log.info("Received payment request: {}", request);
         try{
-            orderService.updateOrderStatus(Long.valueOf(request.getOrderNumber()),"получена ссылка на оплату");
-
-            String orderId = String.format("%s-n%s-%s-%s",
-                    request.getUserIdTo(),
-                    request.getOrderNumber(),
-                    request.getUserIdFrom(),
-                    request.getDate()
-            );
-
-            TinkoffInitRequest tinkoffRequest = new TinkoffInitRequest();
-            tinkoffRequest.setAmount(request.getAmount().toString());
-            tinkoffRequest.setDescription("Оплата заказа на платформе");
-            tinkoffRequest.setOrderId(orderId);
-            tinkoffRequest.setTerminalKey(terminalKey);
-
-            String token = generateToken(tinkoffRequest);
-            tinkoffRequest.setToken(token);
-
-
-            TinkoffInitResponse response = callTinkoffInit(tinkoffRequest);
+            TinkoffInitResponse response = paymentService.createPaymentLink(request);
             return ResponseEntity.ok(response);
+        }catch (CircuitBreaker.OpenException e){
+            log.warn("Tinkoff API недоступен: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Payment provider unavailable"));
         }catch (Exception e){
             log.error("Ошибка при создании платежной ссылки: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -69,124 +39,33 @@ public class PaymentController {
         }
     }
 
-    private String generateToken(TinkoffInitRequest request) throws NoSuchAlgorithmException {
-        Map<String, String> fields = new TreeMap<>();
-        fields.put("TerminalKey", request.getTerminalKey());
-        fields.put("Amount", request.getAmount());
-        fields.put("OrderId", request.getOrderId());
-        fields.put("Description", request.getDescription());
-        fields.put("Password", terminalPassword);
+    @PostMapping("/payment-status")
+    public ResponseEntity<String> handlePaymentStatus(@RequestBody PaymentStatusRequest request) {
+        log.info("Получен статус платежа {}: {}", request.getPaymentId(), request.getStatus());
 
-        StringBuilder concatenated = new StringBuilder();
-        for (String value : fields.values()) {
-            if (value != null) {
-                concatenated.append(value);
-            }
+        if (!paymentStatusService.verify(request)) {
+            log.warn("Неверная подпись уведомления о платеже {}", request.getPaymentId());
+            return ResponseEntity.badRequest().body("Invalid token");
         }
 
-        log.info("String for token generation: {}", concatenated.toString());
-
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(concatenated.toString().getBytes(StandardCharsets.UTF_8));
-
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hash) {
-            String hex = String.format("%02x", b);
-            hexString.append(hex);
+        PaymentOrderId orderId;
+        try {
+            orderId = PaymentOrderId.parse(request.getOrderId());
+        } catch (IllegalArgumentException e) {
+            log.error("Некорректный OrderId: {}", request.getOrderId());
+            return ResponseEntity.badRequest().body("Invalid OrderId format");
         }
 
-        String token = hexString.toString();
-        log.info("Generated token: {}", token);
-
-        return token;
-    }
-
-    private TinkoffInitResponse callTinkoffInit(TinkoffInitRequest request) {
-        RestTemplate restTemplate = new RestTemplate();
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<TinkoffInitRequest> entity = new HttpEntity<>(request, headers);
-
-        ResponseEntity<TinkoffInitResponse> response = restTemplate.postForEntity(
-                "https://securepay.tinkoff.ru/v2/Init",
-                entity,
-                TinkoffInitResponse.class
-        );
-
-        System.out.println("Response status: " + terminalKey);
-        System.out.println("Response status: " + response);
-        System.out.println("Response status: " + response.getBody());
-        System.out.println("Response JSON body: " + response.getBody());
-
-        return response.getBody();
-    }
-
-    @PostMapping("/payment-status")
-    public ResponseEntity<String> handlePaymentStatus(@RequestBody PaymentStatusRequest request) {
-        System.out.println("Received Payment Status request: dknr3ioh4vio3");
         try {
-            log.info("Получен статус платежа: {}", request.getStatus());
-            log.info("Данные платежа: {}", request);
-
-            String orderId = request.getOrderId();
-            log.info("OrderId для обработки: {}", orderId);
-
-            String[] orderParts = orderId.split("-n");
-
-            if (orderParts.length < 2) {
-                log.error("Некорректный формат OrderId: {}", orderId);
-                return ResponseEntity.badRequest().body("Invalid OrderId format");
+            if (paymentStatusService.markReceived(request)) {
+                paymentStatusService.process(request, orderId);
+            } else {
+                log.info("Повторное уведомление {} для платежа {} пропущено", request.getStatus(), request.getPaymentId());
             }
-
-            String userIdTo = orderParts[0];
-            String remainingPart = orderParts[1];
-
-            String[] remainingParts = remainingPart.split("-");
-
-            if (remainingParts.length < 3) {
-                log.error("Некорректный формат оставшейся части OrderId: {}", remainingPart);
-                return ResponseEntity.badRequest().body("Invalid OrderId format - missing parts");
-            }
-
-            String orderNumberStr = remainingParts[0];
-            String userIdFrom = remainingParts[1];
-
-            try {
-                Long orderNumber = Long.parseLong(orderNumberStr);
-                Long userIdToNumber = Long.parseLong(userIdTo);
-                Long userIdFromNumber = Long.parseLong(userIdFrom);
-
-                log.info("Распарсенные данные: orderNumber={}, userIdTo={}, userIdFrom={}",
-                        orderNumber, userIdToNumber, userIdFromNumber);
-
-                switch (request.getStatus()) {
-                    case "CONFIRMED":
-                        handleConfirmedPayment(orderNumber, userIdToNumber);
-                        break;
-                }
-
-                return ResponseEntity.ok("OK");
-
-            } catch (NumberFormatException e) {
-                log.error("Ошибка парсинга чисел из OrderId: {}", orderId, e);
-                return ResponseEntity.badRequest().body("Invalid number format in OrderId");
-            }
-
+            return ResponseEntity.ok("OK");
         } catch (Exception error) {
             log.error("Ошибка обработки статуса платежа:", error);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Ошибка сервера");
         }
     }
-
-    private void handleConfirmedPayment(Long orderNumber, Long userIdToNumber) {
-        System.out.println("Received Payment Status requvfelr4oigio54ioest: dknr3ioh4vio3");
-        try{
-            telegramBotService.sendMessage(Long.valueOf(userIdToNumber),"Успешная оплата заказа "+String.valueOf(orderNumber));
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.example.demo.controller;
+
+import com.example.demo.TelegramBot.TelegramWebhookHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.RejectedExecutionException;
+
+@Slf4j
+@RestController
+@RequestMapping("/telegram")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class TelegramWebhookController {
+    private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final TelegramWebhookHandler webhookHandler;
+
+    @PostMapping("/webhook")
+    public ResponseEntity<Void> onUpdate(@RequestHeader(value = SECRET_HEADER, required = false) String secret,
+                                         @RequestBody Update update) {
+        if (!isValidSecret(secret)) {
+            log.warn("Rejected webhook update {} with invalid secret token", update.getUpdateId());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        // Отвечаем сразу: обработка идет в очереди чата, повторы Telegram отсекаются по update_id.
+        // Поток запроса не ждет свободного слота: при перегрузке 429, Telegram повторит доставку позже
+        try {
+            webhookHandler.accept(update);
+        } catch (RejectedExecutionException e) {
+            log.warn("Update {} rejected, processing is saturated: {}", update.getUpdateId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    private boolean isValidSecret(String secret) {
+        String expected = webhookHandler.getSecret();
+        if (expected == null || expected.isEmpty()) {
+            return true;
+        }
+        return secret != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationStats {
+    private Long orderId;
+    private String category;
+    private int recipients;
+    private int delivered;
+    private int failed;
+    private boolean completed;
+    private LocalDateTime startedAt;
+    private long durationMs;
+}
@@ -0,0 +1,37 @@
+package com.example.demo.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации заказов: (created_at, id) последнего заказа страницы.
+ * Наружу отдается непрозрачной base64url-строкой.
+ */
+public record OrderCursor(LocalDateTime createdAt, Long id) {
+    // Начало списка: больше любого реального (created_at, id)
+    public static final OrderCursor FIRST = new OrderCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    public static OrderCursor parse(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new OrderCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public static OrderCursor after(OrderSummary order) {
+        return new OrderCursor(order.createdAt(), order.id());
+    }
+
+    public String format() {
+        String value = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderStatus;
+
+/**
+ * Событие изменения заказа. Целиком (с заказом) уходит только в поток заказов пользователя -
+ * заказчика или исполнителя; подписчики ленты категории получают {@link #forFeed()}.
+ */
+public record OrderEvent(String type, Long orderId, String category, OrderStatus status,
+                         Long customerId, Long executorId, Order order) {
+    public static final String CREATED = "order-created";
+    public static final String ACCEPTED = "order-accepted";
+    public static final String STATUS_CHANGED = "order-status";
+    public static final String DELETED = "order-deleted";
+    // Только для ленты категории: заказ больше не открыт
+    public static final String REMOVED = "order-removed";
+
+    public static OrderEvent of(String type, Order order) {
+        return new OrderEvent(type, order.getId(), order.getCategory(), order.getStatus(),
+                order.getTelegramUserId(), order.getExecutorId(), order);
+    }
+
+    /**
+     * Событие для ленты категории: открытый заказ - поля ленты, принятый или удаленный открытый - удаление
+     * из ленты по id. Остальные изменения ленты не касаются (null). Закрыть открытый заказ можно только
+     * принятием или удалением, поэтому смена статуса в ленту попадает, лишь когда заказ снова открыт.
+     */
+    public Feed forFeed() {
+        if (status == OrderStatus.OPEN && !DELETED.equals(type)) {
+            return new Feed(type, orderId, category, order != null ? OrderFeedItem.of(order) : null);
+        }
+        if (ACCEPTED.equals(type) || DELETED.equals(type) && status == OrderStatus.OPEN) {
+            return new Feed(REMOVED, orderId, category, null);
+        }
+        return null;
+    }
+
+    public record Feed(String type, Long orderId, String category, OrderFeedItem order) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Order;
+
+import java.time.LocalDateTime;
+
+/**
+ * Открытый заказ в событиях ленты категории: только то, что видно в ленте, без заказчика, исполнителя и платежа.
+ */
+public record OrderFeedItem(Long id, String university, String subject, String category, String description,
+                            String price, LocalDateTime createdAt) {
+
+    public static OrderFeedItem of(Order order) {
+        return new OrderFeedItem(order.getId(), order.getUniversity(), order.getSubject(), order.getCategory(),
+                order.getDescription(), order.getPrice(), order.getCreatedAt());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Страница списка заказов; nextCursor = null на последней странице.
+ */
+public record OrderPage(List<OrderSummary> items, String nextCursor) {
+}
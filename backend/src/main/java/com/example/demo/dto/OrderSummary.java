@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Заказ для списков: без описания (TEXT) и служебных полей платежа.
+ */
+public record OrderSummary(Long id, Long telegramUserId, String university, String subject, String category,
+                           String price, OrderStatus status, LocalDateTime createdAt, Long executorId) {
+}
@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+/**
+ * Составной OrderId платежа Тинькофф: {userIdTo}-n{orderNumber}-{userIdFrom}-{date}.
+ */
+public record PaymentOrderId(Long userIdTo, Long orderNumber, Long userIdFrom, String date) {
+
+    public static PaymentOrderId parse(String orderId) {
+        if (orderId == null) {
+            throw new IllegalArgumentException("OrderId is missing");
+        }
+        int orderStart = orderId.indexOf("-n");
+        int userFromStart = orderStart < 0 ? -1 : orderId.indexOf('-', orderStart + 2);
+        int dateStart = userFromStart < 0 ? -1 : orderId.indexOf('-', userFromStart + 1);
+        if (dateStart < 0) {
+            throw new IllegalArgumentException("Invalid OrderId format: " + orderId);
+        }
+
+        try {
+            return new PaymentOrderId(
+                    Long.parseLong(orderId, 0, orderStart, 10),
+                    Long.parseLong(orderId, orderStart + 2, userFromStart, 10),
+                    Long.parseLong(orderId, userFromStart + 1, dateStart, 10),
+                    orderId.substring(dateStart + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number format in OrderId: " + orderId, e);
+        }
+    }
+
+    public String format() {
+        return userIdTo + "-n" + orderNumber + "-" + userIdFrom + "-" + date;
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Data
@@ -20,5 +22,25 @@ public class PaymentStatusRequest {
     @JsonProperty("Amount")
     private String amount;
 
+    @JsonProperty("Token")
+    private String token;
+
     private Map<String, Object> otherData = new HashMap<>();
-}
\ No newline at end of file
+
+    @JsonAnySetter
+    public void setOther(String name, Object value) {
+        otherData.put(name, value);
+    }
+
+    /**
+     * Все поля уведомления, кроме Token, - по ним проверяется подпись.
+     */
+    public Map<String, Object> toSignedFields() {
+        Map<String, Object> fields = new LinkedHashMap<>(otherData);
+        fields.put("Status", status);
+        fields.put("OrderId", orderId);
+        fields.put("PaymentId", paymentId);
+        fields.put("Amount", amount);
+        return fields;
+    }
+}
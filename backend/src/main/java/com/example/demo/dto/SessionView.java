@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.ChatSession;
+
+/**
+ * Неизменяемый снимок полей ChatSession, которые нужны командам бота.
+ */
+public record SessionView(String sessionId, Long user1Id, Long user2Id, Long orderId, String status, boolean paid) {
+
+    public static SessionView of(ChatSession session) {
+        return new SessionView(session.getSessionId(), session.getUser1Id(), session.getUser2Id(),
+                session.getOrderId(), session.getStatus(), Boolean.TRUE.equals(session.getPaid()));
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.redis.core.RedisHash;
 import org.springframework.data.redis.core.index.Indexed;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -45,6 +46,11 @@ public class ChatSession implements Serializable {
     private Boolean paid = false;
     private Set<Long> completionApprovals = new HashSet<>();
 
+    // Индекс "участник:статус" (ChatSession:participantStatuses:<userId>:<status>), пересчитывается перед сохранением
+    @JsonIgnore
+    @Indexed
+    private Set<String> participantStatuses = new HashSet<>();
+
     public ChatSession() {
         this.createdAt = LocalDateTime.now();
         this.lastActivity = LocalDateTime.now();
@@ -61,4 +67,15 @@ public class ChatSession implements Serializable {
     public String getUserTempId(Long userId) {
         return userId.equals(user1Id) ? user1TempId : user2TempId;
     }
+
+    public void refreshParticipantStatuses() {
+        Set<String> values = new HashSet<>();
+        values.add(participantStatus(user1Id, status));
+        values.add(participantStatus(user2Id, status));
+        participantStatuses = values;
+    }
+
+    public static String participantStatus(Long userId, String status) {
+        return userId + ":" + status;
+    }
 }
\ No newline at end of file
@@ -6,7 +6,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Лента по статусу и категории и история пользователя, обе с keyset-пагинацией по created_at
+        @Index(name = "idx_orders_status_category_created_at", columnList = "status, category, created_at"),
+        @Index(name = "idx_orders_telegram_user_id_created_at", columnList = "telegram_user_id, created_at")
+})
 @Data
 public class Order {
     @Id
@@ -34,8 +38,9 @@ public class Order {
     @Column(name = "price")
     private String price;
 
+    @Convert(converter = OrderStatusConverter.class)
     @Column(name = "status", nullable = false)
-    private String status = "в поиске";
+    private OrderStatus status = OrderStatus.OPEN;
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -46,6 +51,13 @@ public class Order {
     @Column(name = "executor_id")
     private Long executorId;
 
+    @Column(name = "payment_id")
+    private String paymentId;
+
+    // Последний статус платежа Тинькофф (AUTHORIZED, CONFIRMED, REFUNDED, ...)
+    @Column(name = "payment_status")
+    private String paymentStatus;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,73 @@
+package com.example.demo.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Жизненный цикл заказа. В БД хранится код (smallint), подписи для пользователя - на стороне фронтенда.
+ */
+public enum OrderStatus {
+    OPEN(0, "в поиске"),
+    ACCEPTED(1, "принят исполнителем"),
+    PAYMENT_LINK_SENT(2, "получена ссылка на оплату"),
+    COMPLETED(3, "завершен");
+
+    private final short code;
+    // Строка, которая хранилась в колонке status до перехода на коды
+    private final String legacyLabel;
+
+    OrderStatus(int code, String legacyLabel) {
+        this.code = (short) code;
+        this.legacyLabel = legacyLabel;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public String getLegacyLabel() {
+        return legacyLabel;
+    }
+
+    /**
+     * Переходы через смену статуса (PUT /status). ACCEPTED сюда не входит: принять заказ можно
+     * только откликом исполнителя (OrderService.acceptOrder), который назначает исполнителя и создает чат.
+     */
+    public Set<OrderStatus> nextStatuses() {
+        return switch (this) {
+            case OPEN -> EnumSet.noneOf(OrderStatus.class);
+            // Исполнитель может отказаться от заказа, ссылку на оплату можно запросить повторно
+            case ACCEPTED -> EnumSet.of(OPEN, PAYMENT_LINK_SENT, COMPLETED);
+            case PAYMENT_LINK_SENT -> EnumSet.of(PAYMENT_LINK_SENT, COMPLETED);
+            case COMPLETED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return nextStatuses().contains(next);
+    }
+
+    public static OrderStatus fromCode(short code) {
+        for (OrderStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order status code: " + code);
+    }
+
+    /**
+     * Принимает имя константы (COMPLETED) и прежнюю строку статуса ("завершен").
+     */
+    public static OrderStatus parse(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Order status is missing");
+        }
+        for (OrderStatus status : values()) {
+            if (status.name().equalsIgnoreCase(value) || status.legacyLabel.equals(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order status: " + value);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.entity;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Побочный эффект изменения заказа (уведомления в Telegram, создание чата), записанный
+ * в одной транзакции с заказом. Рассылает OrderOutbox.
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+        // Выборка готовых к отправке записей
+        @Index(name = "idx_order_outbox_sent_at_available_at", columnList = "sent_at, available_at")
+})
+@Data
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Повторная запись того же события (тип + заказ + участник) игнорируется
+    @Column(name = "dedup_key", nullable = false, unique = true)
+    private String dedupKey;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Время следующей попытки; пока запись в работе - окончание аренды
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
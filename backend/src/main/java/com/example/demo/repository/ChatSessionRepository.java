@@ -10,9 +10,12 @@ import java.util.List;
 public interface ChatSessionRepository extends CrudRepository<ChatSession, String> {
     List<ChatSession> findByUser1IdOrUser2Id(Long user1Id, Long user2Id);
 
-    default List<ChatSession> findByUser1IdOrUser2IdAndStatus(Long user1Id, Long user2Id, String status) {
-        List<ChatSession> sessions = findByUser1IdOrUser2Id(user1Id, user2Id);
-        return sessions.stream()
+    // Одно чтение индекса ChatSession:participantStatuses:<userId>:<status>
+    List<ChatSession> findByParticipantStatuses(String participantStatus);
+
+    // Статус перепроверяется: индекс отстает от hash'а, пока сессию после закрытия скриптом не пересохранили
+    default List<ChatSession> findByParticipantAndStatus(Long userId, String status) {
+        return findByParticipantStatuses(ChatSession.participantStatus(userId, status)).stream()
                 .filter(session -> status.equals(session.getStatus()))
                 .toList();
     }
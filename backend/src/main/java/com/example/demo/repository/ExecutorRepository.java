@@ -10,5 +10,13 @@ public interface ExecutorRepository extends JpaRepository<Executor, Long> {
     Optional<Executor> findByIdAndTelegramUserId(Long id, Long telegramUserId);
     List<Executor> findByCategory(String category);
     boolean existsByTelegramUserIdAndCategory(Long telegramUserId, String category);
+
+    // Только пары категория/пользователь для прогрева индекса подписчиков
+    List<CategorySubscription> findAllProjectedBy();
+
+    interface CategorySubscription {
+        String getCategory();
+        Long getTelegramUserId();
+    }
 }
 
@@ -1,20 +1,81 @@
 
 package com.example.demo.repository;
 
+import com.example.demo.dto.OrderSummary;
 import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByTelegramUserId(Long telegramUserId);
-    List<Order> findByTelegramUserIdAndStatus(Long telegramUserId, String status);
-    List<Order> findByStatus(String status);
-    List<Order> findByStatusAndCategory(String status, String category);
-    List<Order> findByStatusOrderByCreatedAtDesc(String status);
+    List<Order> findByTelegramUserIdAndStatus(Long telegramUserId, OrderStatus status);
+    List<Order> findByStatus(OrderStatus status);
+    List<Order> findByStatusAndCategory(OrderStatus status, String category);
+    List<Order> findByStatusOrderByCreatedAtDesc(OrderStatus status);
     List<Order> findByTelegramUserIdOrderByCreatedAtDesc(Long telegramUserId);
-    List<Order> findByTelegramUserIdNotAndStatusAndCategory(Long telegramUserId, String status, String category);
+    List<Order> findByTelegramUserIdNotAndStatusAndCategory(Long telegramUserId, OrderStatus status, String category);
 
+    // Условный переход OPEN -> ACCEPTED: 1 - отклик выиграл, 0 - заказ уже принят или не найден
+    @Modifying
+    @Transactional
+    @Query("update Order o set o.status = :accepted, o.executorId = :executorId where o.id = :id and o.status = :open")
+    int acceptIfOpen(@Param("id") Long id, @Param("executorId") Long executorId,
+                     @Param("open") OrderStatus open, @Param("accepted") OrderStatus accepted);
+
+    // Условная смена статуса: 0 - статус уже не expected (параллельная смена) или заказ не найден.
+    // clearAutomatically - загруженный до UPDATE заказ не должен остаться в контексте со старым статусом
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("update Order o set o.status = :next where o.id = :id and o.status = :expected")
+    int updateStatusIf(@Param("id") Long id, @Param("expected") OrderStatus expected, @Param("next") OrderStatus next);
+
+    // Возврат в поиск: исполнитель снимается, заказ снова может принять любой
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("update Order o set o.status = :open, o.executorId = null where o.id = :id and o.status = :expected")
+    int reopenIf(@Param("id") Long id, @Param("expected") OrderStatus expected, @Param("open") OrderStatus open);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("update Order o set o.status = :completed, o.completedAt = :completedAt where o.id = :id and o.status = :expected")
+    int completeIf(@Param("id") Long id, @Param("expected") OrderStatus expected,
+                   @Param("completed") OrderStatus completed, @Param("completedAt") LocalDateTime completedAt);
+
+    // Keyset-страницы (created_at desc, id desc) после заказа (createdAt, id); размер страницы - из Pageable
+
+    String SUMMARY_SELECT = "select new com.example.demo.dto.OrderSummary(o.id, o.telegramUserId, o.university, " +
+            "o.subject, o.category, o.price, o.status, o.createdAt, o.executorId) from Order o ";
+    String AFTER_CURSOR = " and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id))" +
+            " order by o.createdAt desc, o.id desc";
+
+    @Query(SUMMARY_SELECT + "where o.telegramUserId = :telegramUserId" + AFTER_CURSOR)
+    List<OrderSummary> findUserSummaries(@Param("telegramUserId") Long telegramUserId,
+                                         @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                         Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where o.telegramUserId = :telegramUserId and o.status = :status" + AFTER_CURSOR)
+    List<OrderSummary> findUserSummariesByStatus(@Param("telegramUserId") Long telegramUserId,
+                                                 @Param("status") OrderStatus status,
+                                                 @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                 Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where o.status = :status" + AFTER_CURSOR)
+    List<OrderSummary> findStatusSummaries(@Param("status") OrderStatus status,
+                                           @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                           Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where o.status = :status and o.category = :category" + AFTER_CURSOR)
+    List<OrderSummary> findStatusCategorySummaries(@Param("status") OrderStatus status, @Param("category") String category,
+                                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                   Pageable pageable);
 }
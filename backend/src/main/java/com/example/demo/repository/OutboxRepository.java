@@ -0,0 +1,65 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // 1 - запись добавлена, 0 - событие с таким ключом уже есть
+    @Modifying
+    @Query(value = "insert into order_outbox (dedup_key, event_type, order_id, payload, attempts, available_at, created_at) " +
+            "values (:dedupKey, :eventType, :orderId, :payload, 0, :now, :now) on conflict (dedup_key) do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("dedupKey") String dedupKey, @Param("eventType") String eventType,
+                       @Param("orderId") Long orderId, @Param("payload") String payload,
+                       @Param("now") LocalDateTime now);
+
+    // Забирает созревшие записи в аренду до leaseUntil; записи, уже взятые другим инстансом, пропускаются
+    @Transactional
+    @Query(value = "update order_outbox set available_at = :leaseUntil, attempts = attempts + 1 " +
+            "where id in (select id from order_outbox where sent_at is null and available_at <= :now " +
+            "and attempts < :maxAttempts order by id limit :limit for update skip locked) returning *",
+            nativeQuery = true)
+    List<OutboxMessage> claim(@Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil,
+                              @Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("update OutboxMessage m set m.sentAt = :sentAt, m.lastError = null where m.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("update OutboxMessage m set m.availableAt = :retryAt, m.lastError = :error where m.id = :id and m.sentAt is null")
+    int release(@Param("id") Long id, @Param("retryAt") LocalDateTime retryAt, @Param("error") String error);
+
+    // Продлевает аренду записей, которые еще в работе у этого инстанса
+    @Modifying
+    @Transactional
+    @Query("update OutboxMessage m set m.availableAt = :leaseUntil where m.id in :ids and m.sentAt is null")
+    int extendLease(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxMessage m where m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    // Исчерпавшие попытки записи claim больше не забирает; последняя попытка уже завершилась (аренда вышла)
+    @Query("select count(m) from OutboxMessage m where m.sentAt is null and m.attempts >= :maxAttempts and m.availableAt <= :now")
+    long countExhausted(@Param("maxAttempts") int maxAttempts, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxMessage m where m.sentAt is null and m.attempts >= :maxAttempts and m.createdAt < :before")
+    int deleteExhaustedBefore(@Param("maxAttempts") int maxAttempts, @Param("before") LocalDateTime before);
+}
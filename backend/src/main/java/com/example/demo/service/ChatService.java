@@ -1,14 +1,19 @@
 package com.example.demo.service;
 
+import com.example.demo.config.RedisRoundTrips;
+import com.example.demo.dto.SessionView;
 import com.example.demo.entity.ChatSession;
+import com.example.demo.TelegramBot.SendPriority;
 import com.example.demo.TelegramBot.TelegramBotService;
-import com.example.demo.repository.ChatSessionRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
@@ -16,13 +21,15 @@ import java.util.concurrent.TimeUnit;
 @Service
 @RequiredArgsConstructor
 public class ChatService {
-    private final ChatSessionRepository chatSessionRepository;
+    private final ChatSessionCache sessionCache;
+    private final ChatSessionTransitions sessionTransitions;
     private final TelegramBotService telegramBotService;
     private final RedisTemplate<String, Object> redisTemplate;
 
     private static final String USER_CURRENT_SESSION_KEY = "user:current:session:";
-    private static final String USER_ACTIVE_SESSIONS_KEY = "user:active:sessions:";
+    static final String USER_ACTIVE_SESSIONS_KEY = "user:active:sessions:";
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "sendMessage"})
     public void sendMessage(String sessionId, Long fromUserId, String message, String fileId, String fileType, String caption) {
         if (fileId != null && !fileId.trim().isEmpty()) {
             // Если есть файл, отправляем файл с подписью
@@ -34,12 +41,13 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "sendFile"})
     public void sendFile(String sessionId, Long fromUserId, String fileId, String fileType, String caption) {
         log.debug("Sending file in session {} from user {}: {} (type: {})",
                 sessionId, fromUserId, fileId, fileType);
 
         try {
-            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
+            Optional<ChatSession> sessionOpt = sessionCache.find(sessionId);
             if (sessionOpt.isEmpty()) {
                 throw new RuntimeException("Session not found: " + sessionId);
             }
@@ -75,10 +83,9 @@ public class ChatService {
             telegramBotService.sendMessageAsync(fromUserId, confirmationMessage);
 
             // Обновление активности
-            session.setLastActivity(LocalDateTime.now());
-            chatSessionRepository.save(session);
+            sessionTransitions.touch(session);
 
-            log.info("File delivered successfully in session {} from {} to {}",
+            log.debug("File delivered successfully in session {} from {} to {}",
                     sessionId, fromUserId, toUserId);
 
         } catch (Exception e) {
@@ -114,7 +121,7 @@ public class ChatService {
         log.debug("Sending message in session {} from user {}: {}", sessionId, fromUserId, message);
 
         try {
-            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
+            Optional<ChatSession> sessionOpt = sessionCache.find(sessionId);
             if (sessionOpt.isEmpty()) {
                 throw new RuntimeException("Session not found: " + sessionId);
             }
@@ -138,15 +145,14 @@ public class ChatService {
             }
 
             String messageToRecipient = "💬 Сообщение от " + fromTempId + ":\n" + message;
-            telegramBotService.sendMessageAsync(toUserId, messageToRecipient);
+            telegramBotService.sendMessageAsync(toUserId, messageToRecipient, SendPriority.CHAT_RELAY);
 
             String confirmationMessage = "✅ Сообщение доставлено в чат с " + toTempId;
             telegramBotService.sendMessageAsync(fromUserId, confirmationMessage);
 
-            session.setLastActivity(LocalDateTime.now());
-            chatSessionRepository.save(session);
+            sessionTransitions.touch(session);
 
-            log.info("Message delivered successfully in session {} from {} to {}",
+            log.debug("Message delivered successfully in session {} from {} to {}",
                     sessionId, fromUserId, toUserId);
 
         } catch (Exception e) {
@@ -156,6 +162,7 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "createChatSession"})
     public ChatSession createChatSession(Long user1Id, Long user2Id, Long orderId) {
         log.info("Creating chat session between user1: {} and user2: {}", user1Id, user2Id);
 
@@ -178,14 +185,13 @@ public class ChatService {
             session.setCompletionApprovals(new HashSet<>());
             session.setPaid(false);
 
-            chatSessionRepository.save(session);
+            sessionCache.save(session);
             log.info("Chat session created successfully: {}", session.getSessionId());
 
             setUserCurrentSession(user1Id, session.getSessionId());
             setUserCurrentSession(user2Id, session.getSessionId());
 
-            addToUserActiveSessions(user1Id, session.getSessionId());
-            addToUserActiveSessions(user2Id, session.getSessionId());
+            addToUserActiveSessions(session);
 
             sendWelcomeMessages(session);
 
@@ -197,29 +203,20 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "handlePayCommand"})
     public boolean handlePayCommand(String sessionId, Long userId, Long orderId) {
         log.info("Processing pay command for session {} by user {}", sessionId, userId);
 
         try {
-            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-            if (sessionOpt.isEmpty()) {
-                throw new RuntimeException("Session not found: " + sessionId);
-            }
+            ChatSession session = findParticipantSession(sessionId, userId);
 
-            ChatSession session = sessionOpt.get();
-
-            if (!isUserInSession(session, userId)) {
-                throw new RuntimeException("User is not a participant of this session");
-            }
-
-            if (session.getPaid()) {
+            // Check-and-set в Redis: из двух одновременных /pay оплату отметит только один
+            int result = sessionTransitions.markPaid(sessionId, userId);
+            if (result == 0) {
                 log.info("Session {} already paid", sessionId);
                 return false;
             }
-
-            session.setPaid(true);
-            session.setLastActivity(LocalDateTime.now());
-            chatSessionRepository.save(session);
+            checkTransition(result, sessionId);
 
             String payerTempId = session.getUserTempId(userId);
             String otherUserTempId = session.getOtherUserTempId(userId);
@@ -243,40 +240,23 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "handleConfirmCompletion"})
     public boolean handleConfirmCompletion(String sessionId, Long userId) {
         log.info("Processing completion confirmation for session {} by user {}", sessionId, userId);
 
         try {
-            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-            if (sessionOpt.isEmpty()) {
-                throw new RuntimeException("Session not found: " + sessionId);
-            }
-
-            ChatSession session = sessionOpt.get();
-
-            if (!isUserInSession(session, userId)) {
-                throw new RuntimeException("User is not a participant of this session");
-            }
+            ChatSession session = findParticipantSession(sessionId, userId);
 
-            if (!session.getPaid()) {
+            ChatSessionTransitions.Approval approval = sessionTransitions.confirmCompletion(sessionId, userId);
+            if (approval.code() == ChatSessionTransitions.NOT_PAID) {
                 String errorMessage = "❌ Подтверждение выполнения условий возможно только после оплаты заказа.\n\n" +
                         "Сначала должна быть произведена оплата с помощью команды /pay";
                 telegramBotService.sendMessageAsync(userId, errorMessage);
                 return false;
             }
+            checkTransition(approval.code(), sessionId);
 
-            if (session.getCompletionApprovals() == null) {
-                session.setCompletionApprovals(new HashSet<>());
-            }
-
-            if (!session.getCompletionApprovals().contains(userId)) {
-                session.getCompletionApprovals().add(userId);
-            }
-
-            session.setLastActivity(LocalDateTime.now());
-            chatSessionRepository.save(session);
-
-            if (session.getCompletionApprovals().size() >= 2) {
+            if (approval.completions() >= 2) {
                 String completionMessage = "✅ Обе стороны подтвердили выполнение условий заказа. Теперь чат можно закрыть командой /close_chat";
                 telegramBotService.sendMessageAsync(session.getUser1Id(), completionMessage);
                 telegramBotService.sendMessageAsync(session.getUser2Id(), completionMessage);
@@ -306,41 +286,19 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "initiateCloseChat"})
     public boolean initiateCloseChat(String sessionId, Long userId) {
         log.info("Initiating chat close for session {} by user {}", sessionId, userId);
 
         try {
-            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-            if (sessionOpt.isEmpty()) {
-                throw new RuntimeException("Session not found: " + sessionId);
-            }
-
-            ChatSession session = sessionOpt.get();
-
-            if (!isUserInSession(session, userId)) {
-                throw new RuntimeException("User is not a participant of this session");
-            }
-
-            if (session.getPaid()) {
-                if (session.getCompletionApprovals() == null || session.getCompletionApprovals().size() < 2) {
-                    String errorMessage = "❌ Нельзя закрыть чат до подтверждения выполнения условий обеими сторонами.\n\n" +
-                            "Используйте команду /confirm_completion после выполнения работы.\n" +
-                            "Текущий статус подтверждений: " +
-                            (session.getCompletionApprovals() != null ? session.getCompletionApprovals().size() : 0) + "/2";
-                    telegramBotService.sendMessageAsync(userId, errorMessage);
-                    return false;
-                }
-            }
-
-            if (session.getCloseApprovals() == null) {
-                session.setCloseApprovals(new HashSet<>());
-            }
+            ChatSession session = findParticipantSession(sessionId, userId);
 
-            if (!session.getCloseApprovals().contains(userId)) {
-                session.getCloseApprovals().add(userId);
+            ChatSessionTransitions.Approval approval = sessionTransitions.approveClose(sessionId, userId, false);
+            if (approval.code() == ChatSessionTransitions.COMPLETION_PENDING) {
+                sendCompletionPendingMessage(userId, approval.completions());
+                return false;
             }
-
-            chatSessionRepository.save(session);
+            checkTransition(approval.code(), sessionId);
 
             Long otherUserId = session.getOtherUserId(userId);
             String userTempId = session.getUserTempId(userId);
@@ -363,44 +321,21 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "approveCloseChat"})
     public boolean approveCloseChat(String sessionId, Long userId) {
         log.info("Approving chat close for session {} by user {}", sessionId, userId);
 
         try {
-            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-            if (sessionOpt.isEmpty()) {
-                throw new RuntimeException("Session not found: " + sessionId);
-            }
-
-            ChatSession session = sessionOpt.get();
-
-            if (!isUserInSession(session, userId)) {
-                throw new RuntimeException("User is not a participant of this session");
-            }
+            ChatSession session = findParticipantSession(sessionId, userId);
 
-            if (session.getPaid()) {
-                if (session.getCompletionApprovals() == null || session.getCompletionApprovals().size() < 2) {
-                    String errorMessage = "❌ Нельзя закрыть чат до подтверждения выполнения условий обеими сторонами.\n\n" +
-                            "Используйте команду /confirm_completion после выполнения работы.\n" +
-                            "Текущий статус подтверждений: " +
-                            (session.getCompletionApprovals() != null ? session.getCompletionApprovals().size() : 0) + "/2";
-                    telegramBotService.sendMessageAsync(userId, errorMessage);
-                    return false;
-                }
-            }
-
-            if (session.getCloseApprovals() == null) {
-                session.setCloseApprovals(new HashSet<>());
-            }
-
-            if (!session.getCloseApprovals().contains(userId)) {
-                session.getCloseApprovals().add(userId);
+            ChatSessionTransitions.Approval approval = sessionTransitions.approveClose(sessionId, userId, true);
+            if (approval.code() == ChatSessionTransitions.COMPLETION_PENDING) {
+                sendCompletionPendingMessage(userId, approval.completions());
+                return false;
             }
+            checkTransition(approval.code(), sessionId);
 
-            if (session.getCloseApprovals().size() >= 2) {
-                session.setStatus("CLOSED");
-                session.setLastActivity(LocalDateTime.now());
-
+            if (approval.code() == ChatSessionTransitions.CLOSED) {
                 String closeMessage = "❌ Чат закрыт по взаимному согласию.";
                 telegramBotService.sendMessageAsync(session.getUser1Id(), closeMessage);
                 telegramBotService.sendMessageAsync(session.getUser2Id(), closeMessage);
@@ -408,8 +343,7 @@ public class ChatService {
                 removeUserCurrentSession(session.getUser1Id());
                 removeUserCurrentSession(session.getUser2Id());
 
-                removeFromUserActiveSessions(session.getUser1Id(), sessionId);
-                removeFromUserActiveSessions(session.getUser2Id(), sessionId);
+                removeFromUserActiveSessions(session);
 
                 log.info("Chat session {} closed successfully", sessionId);
             } else {
@@ -426,7 +360,6 @@ public class ChatService {
                 log.info("Close approval received for session {}, waiting for second user", sessionId);
             }
 
-            chatSessionRepository.save(session);
             return true;
 
         } catch (Exception e) {
@@ -436,9 +369,10 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "getChatStatus"})
     public String getChatStatus(String sessionId, Long userId) {
         try {
-            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
+            Optional<ChatSession> sessionOpt = sessionCache.find(sessionId);
             if (sessionOpt.isEmpty()) {
                 return "Сессия не найдена";
             }
@@ -484,11 +418,12 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "switchUserSession"})
     public void switchUserSession(Long userId, String sessionId) {
         log.debug("Switching user {} to session {}", userId, sessionId);
 
         try {
-            Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
+            Optional<ChatSession> sessionOpt = sessionCache.find(sessionId);
             if (sessionOpt.isEmpty()) {
                 throw new RuntimeException("Session not found: " + sessionId);
             }
@@ -514,11 +449,12 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "getUserCurrentSession"})
     public String getUserCurrentSession(Long userId) {
         try {
             String sessionId = (String) redisTemplate.opsForValue().get(USER_CURRENT_SESSION_KEY + userId);
             if (sessionId != null) {
-                Optional<ChatSession> session = chatSessionRepository.findById(sessionId);
+                Optional<ChatSession> session = sessionCache.find(sessionId);
                 if (session.isPresent() && "ACTIVE".equals(session.get().getStatus())) {
                     return sessionId;
                 } else {
@@ -533,9 +469,21 @@ public class ChatService {
         }
     }
 
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "getAllUserActiveSessions"})
     public List<ChatSession> getUserActiveSessions(Long userId) {
+        return getUserActiveSessions(userId, 0, -1);
+    }
+
+    /**
+     * Активные сессии пользователя, начиная с последних по активности.
+     *
+     * @param limit размер страницы, отрицательное значение - все сессии начиная с offset
+     */
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "getUserActiveSessions"})
+    public List<ChatSession> getUserActiveSessions(Long userId, long offset, long limit) {
         try {
-            List<Object> sessionIdObjects = redisTemplate.opsForList().range(USER_ACTIVE_SESSIONS_KEY + userId, 0, -1);
+            long end = limit < 0 ? -1 : offset + limit - 1;
+            Set<Object> sessionIdObjects = redisTemplate.opsForZSet().reverseRange(USER_ACTIVE_SESSIONS_KEY + userId, offset, end);
 
             if (sessionIdObjects == null || sessionIdObjects.isEmpty()) {
                 return List.of();
@@ -552,14 +500,23 @@ public class ChatService {
                 return List.of();
             }
 
+            Map<String, ChatSession> sessions = sessionCache.findAll(sessionIds);
+
             List<ChatSession> activeSessions = new ArrayList<>();
+            List<String> staleSessionIds = new ArrayList<>();
             for (String sessionId : sessionIds) {
-                Optional<ChatSession> sessionOpt = chatSessionRepository.findById(sessionId);
-                if (sessionOpt.isPresent() && "ACTIVE".equals(sessionOpt.get().getStatus())) {
-                    activeSessions.add(sessionOpt.get());
+                ChatSession session = sessions.get(sessionId);
+                if (session != null && "ACTIVE".equals(session.getStatus())) {
+                    activeSessions.add(session);
+                } else {
+                    staleSessionIds.add(sessionId);
                 }
             }
 
+            if (!staleSessionIds.isEmpty()) {
+                removeStaleActiveSessions(userId, staleSessionIds);
+            }
+
             return activeSessions;
 
         } catch (Exception e) {
@@ -568,10 +525,32 @@ public class ChatService {
         }
     }
 
+    /**
+     * Текущая активная сессия пользователя одним чтением - для команд, которым нужно несколько полей сессии.
+     */
+    @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "getCurrentSessionView"})
+    public SessionView getCurrentSessionView(Long userId) {
+        try {
+            String sessionId = (String) redisTemplate.opsForValue().get(USER_CURRENT_SESSION_KEY + userId);
+            if (sessionId == null) {
+                return null;
+            }
+            Optional<ChatSession> session = sessionCache.find(sessionId);
+            if (session.isPresent() && "ACTIVE".equals(session.get().getStatus())) {
+                return SessionView.of(session.get());
+            }
+            removeUserCurrentSession(userId);
+            return null;
+        } catch (Exception e) {
+            log.error("Error getting current session for user {}: {}", userId, e.getMessage(), e);
+            return null;
+        }
+    }
+
     public Long getOrderId(String sessionId) {
         Long orderId = null;
         try {
-            Optional<ChatSession> session = chatSessionRepository.findById(sessionId);
+            Optional<ChatSession> session = sessionCache.find(sessionId);
             if (session.isPresent()) {
                 orderId = session.get().getOrderId();
             }
@@ -585,7 +564,7 @@ public class ChatService {
     public Long getSecondUserId(String sessionId) {
         Long secondUserId = null;
         try {
-            Optional<ChatSession> session = chatSessionRepository.findById(sessionId);
+            Optional<ChatSession> session = sessionCache.find(sessionId);
             if (session.isPresent()) {
                 secondUserId = session.get().getUser2Id();
             }
@@ -598,7 +577,7 @@ public class ChatService {
     public Long getFirstUserId(String sessionId) {
         Long firstUserId = null;
         try {
-            Optional<ChatSession> session = chatSessionRepository.findById(sessionId);
+            Optional<ChatSession> session = sessionCache.find(sessionId);
             if (session.isPresent()) {
                 firstUserId = session.get().getUser1Id();
             }
@@ -608,14 +587,45 @@ public class ChatService {
         return firstUserId;
     }
 
+    // Индекс участник:статус - только активные сессии пользователя, без закрытых за 7 дней TTL
     private Optional<ChatSession> findActiveSessionBetweenUsers(Long user1Id, Long user2Id, Long orderId) {
-        List<ChatSession> user1Sessions = getUserActiveSessions(user1Id);
+        List<ChatSession> user1Sessions = sessionCache.findByParticipantAndStatus(user1Id, "ACTIVE");
         return user1Sessions.stream()
                 .filter(session -> isUserInSession(session, user2Id) &&
                         orderId.equals(session.getOrderId()))
                 .findFirst();
     }
 
+    // Неизменяемые поля сессии (участники, временные id) для текстов сообщений; состояние меняют скрипты
+    private ChatSession findParticipantSession(String sessionId, Long userId) {
+        Optional<ChatSession> sessionOpt = sessionCache.find(sessionId);
+        if (sessionOpt.isEmpty()) {
+            throw new RuntimeException("Session not found: " + sessionId);
+        }
+
+        ChatSession session = sessionOpt.get();
+        if (!isUserInSession(session, userId)) {
+            throw new RuntimeException("User is not a participant of this session");
+        }
+        return session;
+    }
+
+    private void checkTransition(int result, String sessionId) {
+        if (result == ChatSessionTransitions.NOT_FOUND) {
+            throw new RuntimeException("Session not found: " + sessionId);
+        }
+        if (result == ChatSessionTransitions.NOT_PARTICIPANT) {
+            throw new RuntimeException("User is not a participant of this session");
+        }
+    }
+
+    private void sendCompletionPendingMessage(Long userId, int completions) {
+        String errorMessage = "❌ Нельзя закрыть чат до подтверждения выполнения условий обеими сторонами.\n\n" +
+                "Используйте команду /confirm_completion после выполнения работы.\n" +
+                "Текущий статус подтверждений: " + completions + "/2";
+        telegramBotService.sendMessageAsync(userId, errorMessage);
+    }
+
     private boolean isUserInSession(ChatSession session, Long userId) {
         return userId.equals(session.getUser1Id()) || userId.equals(session.getUser2Id());
     }
@@ -642,30 +652,60 @@ public class ChatService {
         }
     }
 
-    private void addToUserActiveSessions(Long userId, String sessionId) {
+    // Индекс активных сессий - sorted set со score = lastActivity, записи обоих участников одним pipeline
+    private void addToUserActiveSessions(ChatSession session) {
         try {
-            String key = USER_ACTIVE_SESSIONS_KEY + userId;
-
-            redisTemplate.opsForList().remove(key, 0, sessionId);
-
-            redisTemplate.opsForList().rightPush(key, sessionId);
+            double score = ChatSessionTransitions.activityScore(session.getLastActivity());
+            byte[] member = sessionIdBytes(session.getSessionId());
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long userId : List.of(session.getUser1Id(), session.getUser2Id())) {
+                    byte[] key = activeSessionsKey(userId);
+                    connection.zSetCommands().zAdd(key, score, member, RedisZSetCommands.ZAddArgs.empty());
+                    connection.keyCommands().expire(key, TimeUnit.DAYS.toSeconds(7));
+                }
+                return null;
+            });
+            log.debug("Added session {} to active sessions of users {} and {}",
+                    session.getSessionId(), session.getUser1Id(), session.getUser2Id());
+        } catch (Exception e) {
+            log.error("Error adding session {} to active sessions: {}", session.getSessionId(), e.getMessage(), e);
+        }
+    }
 
-            redisTemplate.expire(key, 7, TimeUnit.DAYS);
-            log.debug("Added session {} to active sessions for user {}", sessionId, userId);
+    // Истекшие и закрытые сессии убираются из индекса при чтении
+    private void removeStaleActiveSessions(Long userId, List<String> sessionIds) {
+        try {
+            redisTemplate.opsForZSet().remove(USER_ACTIVE_SESSIONS_KEY + userId, sessionIds.toArray());
+            log.debug("Removed {} stale sessions from active sessions for user {}", sessionIds.size(), userId);
         } catch (Exception e) {
-            log.error("Error adding session to active sessions for user {}: {}", userId, e.getMessage(), e);
+            log.error("Error removing stale sessions for user {}: {}", userId, e.getMessage(), e);
         }
     }
 
-    private void removeFromUserActiveSessions(Long userId, String sessionId) {
+    private void removeFromUserActiveSessions(ChatSession session) {
         try {
-            redisTemplate.opsForList().remove(USER_ACTIVE_SESSIONS_KEY + userId, 0, sessionId);
-            log.debug("Removed session {} from active sessions for user {}", sessionId, userId);
+            byte[] member = sessionIdBytes(session.getSessionId());
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.zSetCommands().zRem(activeSessionsKey(session.getUser1Id()), member);
+                connection.zSetCommands().zRem(activeSessionsKey(session.getUser2Id()), member);
+                return null;
+            });
+            log.debug("Removed session {} from active sessions", session.getSessionId());
         } catch (Exception e) {
-            log.error("Error removing session from active sessions for user {}: {}", userId, e.getMessage(), e);
+            log.error("Error removing session {} from active sessions: {}", session.getSessionId(), e.getMessage(), e);
         }
     }
 
+    // Ключи и элементы для pipeline на уровне соединения - теми же сериализаторами, что у redisTemplate
+    private byte[] activeSessionsKey(Long userId) {
+        return redisTemplate.getStringSerializer().serialize(USER_ACTIVE_SESSIONS_KEY + userId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] sessionIdBytes(String sessionId) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(sessionId);
+    }
+
     private void sendWelcomeMessages(ChatSession session) {
         try {
             String messageToUser1 = "🎉 Чат создан! Вы общаетесь с: " + session.getUser2TempId() +
@@ -0,0 +1,180 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ChatSession;
+import com.example.demo.repository.ChatSessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisKeyValueAdapter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through кэш ChatSession поверх Redis-репозитория.
+ * <p>
+ * Два уровня: в пределах обработки одного обновления бота сессия читается из Redis один раз
+ * (см. {@link #inScope}), между обновлениями - из локального кэша с коротким TTL.
+ * Каждое сохранение через {@link #save} сбрасывает оба уровня. Закэшированные объекты только для чтения:
+ * изменения состояния сессии делаются скриптами {@link ChatSessionTransitions}, которые тоже сбрасывают кэш.
+ */
+@Component
+public class ChatSessionCache {
+    private static final String SESSION_KEYSPACE = "ChatSession";
+    private static final ThreadLocal<Map<String, Optional<ChatSession>>> SCOPE = new ThreadLocal<>();
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisConverter redisConverter;
+    private final Cache<String, ChatSession> cache;
+
+    public ChatSessionCache(ChatSessionRepository chatSessionRepository, StringRedisTemplate stringRedisTemplate,
+                            RedisKeyValueAdapter redisKeyValueAdapter,
+                            @Value("${app.session-cache.ttl-ms:2000}") long ttlMs,
+                            @Value("${app.session-cache.max-size:10000}") long maxSize) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisConverter = redisKeyValueAdapter.getConverter();
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public Optional<ChatSession> find(String sessionId) {
+        Optional<ChatSession> local = findLocal(sessionId);
+        if (local != null) {
+            return local;
+        }
+        Optional<ChatSession> result = chatSessionRepository.findById(sessionId);
+        remember(sessionId, result);
+        return result;
+    }
+
+    /**
+     * Сессии по списку id: отсутствующие локально читаются из Redis одним pipeline (HGETALL на каждую),
+     * а не отдельным запросом на каждую сессию. Истекшие сессии в результат не попадают.
+     */
+    public Map<String, ChatSession> findAll(List<String> sessionIds) {
+        Map<String, Optional<ChatSession>> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String sessionId : sessionIds) {
+            Optional<ChatSession> local = findLocal(sessionId);
+            if (local != null) {
+                found.put(sessionId, local);
+            } else {
+                missing.add(sessionId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<Object> hashes = stringRedisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                connection.openPipeline();
+                for (String sessionId : missing) {
+                    connection.hashCommands().hGetAll(sessionKey(sessionId));
+                }
+                return connection.closePipeline();
+            });
+
+            for (int i = 0; i < missing.size(); i++) {
+                String sessionId = missing.get(i);
+                Optional<ChatSession> session = readSession(sessionId, hashes != null ? hashes.get(i) : null);
+                remember(sessionId, session);
+                found.put(sessionId, session);
+            }
+        }
+
+        Map<String, ChatSession> result = new LinkedHashMap<>();
+        for (String sessionId : sessionIds) {
+            found.get(sessionId).ifPresent(session -> result.put(sessionId, session));
+        }
+        return result;
+    }
+
+    // null - сессии нет ни в области обновления, ни в локальном кэше
+    private Optional<ChatSession> findLocal(String sessionId) {
+        Map<String, Optional<ChatSession>> scope = SCOPE.get();
+        if (scope != null) {
+            Optional<ChatSession> scoped = scope.get(sessionId);
+            if (scoped != null) {
+                return scoped;
+            }
+        }
+        ChatSession cached = cache.getIfPresent(sessionId);
+        return cached != null ? Optional.of(cached) : null;
+    }
+
+    private void remember(String sessionId, Optional<ChatSession> session) {
+        session.ifPresent(value -> cache.put(sessionId, value));
+        Map<String, Optional<ChatSession>> scope = SCOPE.get();
+        if (scope != null) {
+            scope.put(sessionId, session);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<ChatSession> readSession(String sessionId, Object hash) {
+        if (!(hash instanceof Map) || ((Map<byte[], byte[]>) hash).isEmpty()) {
+            return Optional.empty();
+        }
+        RedisData data = new RedisData(Bucket.newBucketFromRawMap((Map<byte[], byte[]>) hash));
+        data.setId(sessionId);
+        data.setKeyspace(SESSION_KEYSPACE);
+        return Optional.ofNullable(redisConverter.read(ChatSession.class, data));
+    }
+
+    // Ключ hash'а, в котором Spring Data Redis хранит сессию (@RedisHash("ChatSession"))
+    private static byte[] sessionKey(String sessionId) {
+        return (SESSION_KEYSPACE + ":" + sessionId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Сессии пользователя в статусе status одним чтением индекса participantStatuses, без кэша.
+     */
+    public List<ChatSession> findByParticipantAndStatus(Long userId, String status) {
+        return chatSessionRepository.findByParticipantAndStatus(userId, status);
+    }
+
+    public ChatSession save(ChatSession session) {
+        session.refreshParticipantStatuses();
+        ChatSession saved = chatSessionRepository.save(session);
+        invalidate(session.getSessionId());
+        return saved;
+    }
+
+    public void invalidate(String sessionId) {
+        cache.invalidate(sessionId);
+        Map<String, Optional<ChatSession>> scope = SCOPE.get();
+        if (scope != null) {
+            scope.remove(sessionId);
+        }
+    }
+
+    /**
+     * Выполняет действие с кэшем сессий на время обработки одного обновления.
+     */
+    public void inScope(Runnable action) {
+        if (SCOPE.get() != null) {
+            action.run();
+            return;
+        }
+        SCOPE.set(new HashMap<>());
+        try {
+            action.run();
+        } finally {
+            SCOPE.remove();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RedisConfig;
+import com.example.demo.entity.ChatSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Переходы состояния ChatSession, выполняемые в Redis Lua-скриптами за один round-trip.
+ * <p>
+ * Скрипты меняют только нужные поля hash'а ChatSession (paid, status, элементы множеств одобрений,
+ * lastActivity), поэтому параллельные команды двух участников и нескольких инстансов не затирают
+ * изменения друг друга. Скрипт трогает только ключи из KEYS (совместимо с Redis Cluster), поэтому индекс
+ * participantStatuses после закрытия обновляется пересохранением сессии через репозиторий.
+ * После перехода кэш сессии сбрасывается.
+ */
+@Component
+public class ChatSessionTransitions {
+    public static final int NOT_FOUND = -1;
+    public static final int NOT_PARTICIPANT = -2;
+    public static final int NOT_PAID = -3;
+    public static final int COMPLETION_PENDING = -4;
+    public static final int APPLIED = 1;
+    public static final int CLOSED = 2;
+
+    private static final String SESSION_KEY = "ChatSession:";
+    private static final long ACTIVE_SESSIONS_TTL_SECONDS = TimeUnit.DAYS.toSeconds(7);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ChatSessionCache sessionCache;
+    // Элементы индексов активных сессий пишет redisTemplate (ChatService) - тем же сериализатором значений
+    private final RedisSerializer<Object> memberSerializer;
+    private final boolean legacyDates;
+
+    private final RedisScript<Long> payScript = script("scripts/session_pay.lua", Long.class);
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> approveScript = script("scripts/session_approve.lua", List.class);
+    private final RedisScript<Long> touchScript = script("scripts/session_touch.lua", Long.class);
+
+    public ChatSessionTransitions(StringRedisTemplate stringRedisTemplate, ChatSessionCache sessionCache,
+                                  @Value("${app.redis.serializer:jdk}") String serializer) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.sessionCache = sessionCache;
+        this.memberSerializer = RedisConfig.valueSerializer(serializer);
+        this.legacyDates = RedisConfig.isLegacy(serializer);
+    }
+
+    /**
+     * @return 1 - оплата отмечена, 0 - уже была отмечена, отрицательное значение - ошибка (см. константы)
+     */
+    public int markPaid(String sessionId, Long userId) {
+        Long result = stringRedisTemplate.execute(payScript, List.of(SESSION_KEY + sessionId),
+                userId.toString(), lastActivity(LocalDateTime.now()));
+        sessionCache.invalidate(sessionId);
+        return result != null ? result.intValue() : NOT_FOUND;
+    }
+
+    public Approval confirmCompletion(String sessionId, Long userId) {
+        return approve(sessionId, userId, "completion");
+    }
+
+    /**
+     * @param closeWhenBoth перевести сессию в CLOSED, если после подтверждения их стало два
+     */
+    public Approval approveClose(String sessionId, Long userId, boolean closeWhenBoth) {
+        return approve(sessionId, userId, closeWhenBoth ? "close-final" : "close");
+    }
+
+    /**
+     * Обновляет lastActivity сессии и ее score в индексах активных сессий обоих участников.
+     */
+    public void touch(ChatSession session) {
+        String sessionId = session.getSessionId();
+        LocalDateTime now = LocalDateTime.now();
+        // Аргументы уходят байтами: id сессии должен совпасть с элементом sorted set'а в формате redisTemplate
+        stringRedisTemplate.execute(touchScript, RedisSerializer.byteArray(), new GenericToStringSerializer<>(Long.class),
+                List.of(SESSION_KEY + sessionId,
+                        ChatService.USER_ACTIVE_SESSIONS_KEY + session.getUser1Id(),
+                        ChatService.USER_ACTIVE_SESSIONS_KEY + session.getUser2Id()),
+                utf8(lastActivity(now)), utf8(Long.toString(activityScore(now))),
+                utf8(String.valueOf(ACTIVE_SESSIONS_TTL_SECONDS)), memberSerializer.serialize(sessionId));
+        sessionCache.invalidate(sessionId);
+    }
+
+    /**
+     * Score индекса активных сессий: lastActivity в epoch millis.
+     */
+    public static long activityScore(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private Approval approve(String sessionId, Long userId, String kind) {
+        List<?> result = stringRedisTemplate.execute(approveScript, List.of(SESSION_KEY + sessionId),
+                userId.toString(), lastActivity(LocalDateTime.now()), kind);
+        sessionCache.invalidate(sessionId);
+        if (result == null || result.size() < 3) {
+            return new Approval(NOT_FOUND, 0, 0);
+        }
+        Approval approval = new Approval(((Number) result.get(0)).intValue(),
+                ((Number) result.get(1)).intValue(),
+                ((Number) result.get(2)).intValue());
+        if (approval.code() == CLOSED) {
+            // Закрытая сессия больше не меняется, полное пересохранение ничего не затирает
+            sessionCache.find(sessionId).ifPresent(sessionCache::save);
+        }
+        return approval;
+    }
+
+    // lastActivity пишется так же, как его пишет репозиторий в текущем режиме (см. RedisConfig.redisCustomConversions):
+    // в jdk - ISO-строкой, которую разбирают и прежние версии, в compact - epoch millis
+    private String lastActivity(LocalDateTime time) {
+        return legacyDates ? time.toString() : Long.toString(activityScore(time));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static <T> RedisScript<T> script(String path, Class<T> resultType) {
+        return RedisScript.of(new ClassPathResource(path), resultType);
+    }
+
+    /**
+     * Результат подтверждения: код (см. константы), размер множества одобрений и число подтверждений выполнения.
+     */
+    public record Approval(int code, int approvals, int completions) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.ExecutorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory индекс "категория -> telegramUserId исполнителей" для рассылки о новых заказах.
+ * Прогревается один раз при старте и поддерживается ExecutorService при создании и изменении анкет.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExecutorCategoryIndex {
+    private final ExecutorRepository executorRepository;
+
+    private final Map<String, Set<Long>> subscribersByCategory = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    public synchronized void reload() {
+        Map<String, Set<Long>> fresh = new ConcurrentHashMap<>();
+        for (ExecutorRepository.CategorySubscription subscription : executorRepository.findAllProjectedBy()) {
+            fresh.computeIfAbsent(subscription.getCategory(), c -> ConcurrentHashMap.newKeySet())
+                    .add(subscription.getTelegramUserId());
+        }
+        subscribersByCategory.clear();
+        subscribersByCategory.putAll(fresh);
+        loaded = true;
+        log.info("Executor category index loaded: {} categories", fresh.size());
+    }
+
+    public List<Long> getSubscribers(String category) {
+        if (!loaded) {
+            reload();
+        }
+        Set<Long> subscribers = subscribersByCategory.get(category);
+        return subscribers != null ? List.copyOf(subscribers) : List.of();
+    }
+
+    public void subscribe(String category, Long telegramUserId) {
+        subscribersByCategory.computeIfAbsent(category, c -> ConcurrentHashMap.newKeySet()).add(telegramUserId);
+    }
+
+    public void move(String oldCategory, String newCategory, Long telegramUserId) {
+        if (oldCategory != null && !oldCategory.equals(newCategory)) {
+            // На одну категорию у пользователя максимум одна анкета (unique telegram_user_id + category)
+            subscribersByCategory.computeIfPresent(oldCategory, (c, subscribers) -> {
+                subscribers.remove(telegramUserId);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+        subscribe(newCategory, telegramUserId);
+    }
+}
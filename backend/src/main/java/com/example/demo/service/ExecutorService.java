@@ -13,6 +13,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ExecutorService {
     private final ExecutorRepository executorRepository;
+    private final ExecutorCategoryIndex executorCategoryIndex;
 
     public Executor createExecutor(ExecutorRequest request) {
         Executor executor = new Executor();
@@ -25,7 +26,9 @@ public class ExecutorService {
         executor.setExperience(request.getExperience());
         executor.setContacts(request.getContacts());
 
-        return executorRepository.save(executor);
+        Executor savedExecutor = executorRepository.save(executor);
+        executorCategoryIndex.subscribe(savedExecutor.getCategory(), savedExecutor.getTelegramUserId());
+        return savedExecutor;
     }
 
     public List<Executor> getExecutorsByUser(Long telegramUserId) {
@@ -42,6 +45,7 @@ public class ExecutorService {
     public Executor updateExecutor(Long id, ExecutorRequest request) {
         Executor executor = executorRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Executor not found"));
+        String oldCategory = executor.getCategory();
 
         executor.setName(request.getName());
         executor.setCategory(request.getCategory());
@@ -50,6 +54,8 @@ public class ExecutorService {
         executor.setExperience(request.getExperience());
         executor.setContacts(request.getContacts());
 
-        return executorRepository.save(executor);
+        Executor savedExecutor = executorRepository.save(executor);
+        executorCategoryIndex.move(oldCategory, savedExecutor.getCategory(), savedExecutor.getTelegramUserId());
+        return savedExecutor;
     }
 }
\ No newline at end of file
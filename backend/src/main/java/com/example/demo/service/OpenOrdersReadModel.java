@@ -0,0 +1,185 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderEvent;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderStatus;
+import com.example.demo.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory модель открытых заказов (OrderStatus.OPEN) для ленты доступных заказов.
+ * <p>
+ * OrderService обновляет модель после каждого сохранения или удаления заказа, изменения других инстансов
+ * приходят событиями из Redis-канала OrderEventHub. Чтения работают на неизменяемом снимке: списки
+ * по категориям отсортированы от новых к старым. Периодическая сверка с БД подбирает события,
+ * пропущенные, пока подписка на канал не работала.
+ */
+@Slf4j
+@Component
+public class OpenOrdersReadModel {
+    private static final Comparator<Order> NEWEST_FIRST = Comparator
+            .comparing(Order::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Order::getId, Comparator.reverseOrder());
+
+    private final OrderRepository orderRepository;
+
+    @Value("${app.orders.read-model.refresh-ms:30000}")
+    private long refreshMs;
+
+    private final Map<Long, Order> openOrders = new HashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean loaded;
+    private ScheduledExecutorService refresher;
+
+    public OpenOrdersReadModel(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+        if (refreshMs > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "open-orders-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refresh, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public synchronized void reload() {
+        Map<Long, Order> fresh = new HashMap<>();
+        for (Order order : orderRepository.findByStatusOrderByCreatedAtDesc(OrderStatus.OPEN)) {
+            fresh.put(order.getId(), order);
+        }
+
+        boolean changed = false;
+        for (Order order : fresh.values()) {
+            changed |= apply(order.getId(), order);
+        }
+        for (Long orderId : List.copyOf(openOrders.keySet())) {
+            if (!fresh.containsKey(orderId)) {
+                changed |= apply(orderId, null);
+            }
+        }
+        if (changed || !loaded) {
+            publish();
+        }
+        loaded = true;
+        log.info("Open orders read model loaded: {} orders", fresh.size());
+    }
+
+    /**
+     * Учитывает сохраненный заказ: открытый добавляется или заменяется, остальные убираются из модели.
+     */
+    public synchronized void put(Order order) {
+        if (apply(order.getId(), order.getStatus() == OrderStatus.OPEN ? order : null)) {
+            publish();
+        }
+    }
+
+    /**
+     * Учитывает событие заказа из Redis-канала. Свои события возвращаются туда же, но уже учтены и модель не меняют.
+     */
+    public synchronized void onEvent(OrderEvent event) {
+        if (OrderEvent.DELETED.equals(event.type()) || event.status() != OrderStatus.OPEN) {
+            remove(event.orderId());
+        } else if (event.order() != null) {
+            put(event.order());
+        }
+    }
+
+    public synchronized void remove(Long orderId) {
+        if (apply(orderId, null)) {
+            publish();
+        }
+    }
+
+    /**
+     * @param excludeUserId заказы этого пользователя не попадают в ленту (null - без фильтра)
+     * @param limit         размер страницы, отрицательное значение - все заказы начиная с offset
+     */
+    public List<Order> getOpenOrders(String category, Long excludeUserId, int offset, int limit) {
+        Snapshot current = current();
+        List<Order> source = category == null
+                ? current.all
+                : current.byCategory.getOrDefault(category, List.of());
+
+        List<Order> page = new ArrayList<>();
+        int skipped = 0;
+        for (Order order : source) {
+            if (excludeUserId != null && excludeUserId.equals(order.getTelegramUserId())) {
+                continue;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            if (limit >= 0 && page.size() >= limit) {
+                break;
+            }
+            page.add(order);
+        }
+        return page;
+    }
+
+    private Snapshot current() {
+        if (!loaded) {
+            reload();
+        }
+        return snapshot;
+    }
+
+    private void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Error refreshing open orders read model: {}", e.getMessage());
+        }
+    }
+
+    // Возвращает true, если модель изменилась
+    private boolean apply(Long orderId, Order order) {
+        Order previous = order != null ? openOrders.put(orderId, order) : openOrders.remove(orderId);
+        return !Objects.equals(previous, order);
+    }
+
+    private void publish() {
+        List<Order> all = new ArrayList<>(openOrders.values());
+        all.sort(NEWEST_FIRST);
+
+        Map<String, List<Order>> byCategory = new HashMap<>();
+        for (Order order : all) {
+            byCategory.computeIfAbsent(order.getCategory(), c -> new ArrayList<>()).add(order);
+        }
+        byCategory.replaceAll((category, orders) -> List.copyOf(orders));
+
+        snapshot = new Snapshot(List.copyOf(all), Map.copyOf(byCategory));
+    }
+
+    private record Snapshot(List<Order> all, Map<String, List<Order>> byCategory) {
+        private static final Snapshot EMPTY = new Snapshot(List.of(), Map.of());
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE-рассылка событий заказов открытым вкладкам мини-приложения.
+ * <p>
+ * Полученные из канала события заодно обновляют ленту открытых заказов этого инстанса ({@link OpenOrdersReadModel}).
+ * <p>
+ * События публикуются в Redis-канал, поэтому доходят до подписчиков всех инстансов. У каждого подписчика
+ * своя ограниченная очередь, которую разбирает небольшой пул отправки: медленный клиент, не успевающий
+ * забирать события, отключается (EventSource переподключится и перечитает ленту), а не копит память.
+ * Heartbeat-комментарии держат соединение через прокси и выявляют закрытые вкладки.
+ * <p>
+ * Заказ целиком (заказчик, исполнитель, платеж) получают только его участники через подписку userId;
+ * подписчикам категории уходит проекция {@link OrderEvent#forFeed()} - поля открытого заказа или его удаление из ленты.
+ */
+@Slf4j
+@Component
+public class OrderEventHub implements MessageListener {
+    private static final String CHANNEL = "orders:events";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final OpenOrdersReadModel openOrdersReadModel;
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.sse.queue-size:64}")
+    private int queueSize;
+
+    @Value("${app.sse.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${app.sse.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${app.sse.sender-threads:4}")
+    private int senderThreads;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventIds = new AtomicLong();
+    private ExecutorService sender;
+    private ScheduledExecutorService heartbeat;
+
+    public OrderEventHub(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper,
+                         RedisMessageListenerContainer listenerContainer, OpenOrdersReadModel openOrdersReadModel) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.listenerContainer = listenerContainer;
+        this.openOrdersReadModel = openOrdersReadModel;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicLong counter = new AtomicLong();
+        sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * @param category события ленты этой категории (null - не подписываться)
+     * @param userId   события заказов, где пользователь заказчик или исполнитель (null - не подписываться)
+     */
+    public SseEmitter subscribe(String category, Long userId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many SSE subscribers: " + subscribers.size());
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, category, userId, new ArrayBlockingQueue<>(queueSize));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        offer(subscriber, SseEmitter.event().reconnectTime(5000).comment("connected"));
+        log.debug("SSE subscriber added: category={}, userId={}, total={}", category, userId, subscribers.size());
+        return emitter;
+    }
+
+    public void publish(OrderEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize order event {} for order {}: {}", event.type(), event.orderId(), e.getMessage());
+            return;
+        }
+
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, payload);
+        } catch (Exception e) {
+            // Без Redis событие получат хотя бы подписчики этого инстанса
+            log.warn("Failed to publish order event {} to Redis: {}", event.orderId(), e.getMessage());
+            dispatch(event, payload);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        OrderEvent event;
+        try {
+            event = objectMapper.readValue(payload, OrderEvent.class);
+        } catch (Exception e) {
+            log.error("Dropping unreadable order event: {}", e.getMessage());
+            return;
+        }
+        try {
+            openOrdersReadModel.onEvent(event);
+        } catch (Exception e) {
+            // Модель догонит периодическая сверка, подписчикам событие все равно уходит
+            log.error("Failed to apply order event {} for order {}: {}", event.type(), event.orderId(), e.getMessage());
+        }
+        dispatch(event, payload);
+    }
+
+    private void dispatch(OrderEvent event, String payload) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // Оба варианта события сериализованы один раз на все подписки
+        OrderEvent.Feed feed = event.forFeed();
+        String feedPayload = null;
+        if (feed != null) {
+            try {
+                feedPayload = objectMapper.writeValueAsString(feed);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize feed event {} for order {}: {}", feed.type(), feed.orderId(), e.getMessage());
+            }
+        }
+
+        String id = Long.toString(eventIds.incrementAndGet());
+        for (Subscriber subscriber : subscribers) {
+            // Участник заказа получает полное событие и по подписке на категорию его не дублирует
+            if (subscriber.isParticipant(event)) {
+                offer(subscriber, SseEmitter.event().id(id).name(event.type()).data(payload));
+            } else if (feedPayload != null && subscriber.follows(feed)) {
+                offer(subscriber, SseEmitter.event().id(id).name(feed.type()).data(feedPayload));
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            // Heartbeat не нужен, если очередь и так не пуста
+            if (subscriber.queue.isEmpty()) {
+                offer(subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+
+    private void offer(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.queue.offer(event)) {
+            log.warn("SSE subscriber is too slow (queue of {} is full), disconnecting", queueSize);
+            disconnect(subscriber);
+            return;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                disconnect(subscriber);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (Exception e) {
+                    // Клиент закрыл вкладку
+                    log.debug("SSE send failed: {}", e.getMessage());
+                    disconnect(subscriber);
+                    return;
+                }
+            }
+            subscriber.scheduled.set(false);
+            // Событие могло прийти между последним poll и сбросом флага
+            if (subscriber.queue.isEmpty() || !subscriber.scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.queue.clear();
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String category;
+        private final Long userId;
+        private final Queue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, String category, Long userId, Queue<SseEmitter.SseEventBuilder> queue) {
+            this.emitter = emitter;
+            this.category = category;
+            this.userId = userId;
+            this.queue = queue;
+        }
+
+        private boolean isParticipant(OrderEvent event) {
+            return userId != null && (userId.equals(event.customerId()) || userId.equals(event.executorId()));
+        }
+
+        private boolean follows(OrderEvent.Feed feed) {
+            return category != null && category.equals(feed.category());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import com.example.demo.TelegramBot.TelegramBotService;
+import com.example.demo.dto.NotificationStats;
+import com.example.demo.entity.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Рассылка уведомлений о новом заказе исполнителям категории.
+ * <p>
+ * Получатели берутся из {@link ExecutorCategoryIndex}, текст собирается один раз на заказ.
+ * Сообщения отправляются пачками: пачка целиком уходит в outbound-диспетчер (он распараллеливает
+ * отправку в рамках лимитов Telegram), следующая пачка ставится после завершения предыдущей,
+ * поэтому очередь не разрастается на тысячи сообщений. Потоки при этом не блокируются.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderNotificationFanout {
+    private static final int MAX_TRACKED_ORDERS = 1000;
+    private static final String AVAILABLE_ORDERS_LINK = "https://t.me/studentsbotmainbot/student?startapp=available_orders";
+
+    private final ExecutorCategoryIndex executorCategoryIndex;
+    private final TelegramBotService telegramBotService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.fanout.batch-size:100}")
+    private int batchSize;
+
+    private final Map<Long, FanoutRun> runs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, FanoutRun> eldest) {
+                    return size() > MAX_TRACKED_ORDERS;
+                }
+            });
+
+    public CompletableFuture<NotificationStats> publish(Order order) {
+        List<Long> recipients = executorCategoryIndex.getSubscribers(order.getCategory());
+        log.debug("Found {} executors for category: {}", recipients.size(), order.getCategory());
+
+        FanoutRun run = new FanoutRun(order, recipients.size());
+        runs.put(order.getId(), run);
+
+        String text = notificationText(order);
+
+        CompletableFuture<Void> pipeline = CompletableFuture.completedFuture(null);
+        for (int from = 0; from < recipients.size(); from += batchSize) {
+            List<Long> batch = recipients.subList(from, Math.min(from + batchSize, recipients.size()));
+            pipeline = pipeline.thenCompose(ignored -> sendBatch(order, batch, text, run));
+        }
+
+        return pipeline.handle((ignored, e) -> {
+            if (e != null) {
+                log.error("Error notifying executors about order {}: {}", order.getId(), e.getMessage(), e);
+            }
+            NotificationStats stats = run.finish();
+            meterRegistry.summary("orders.fanout.recipients").record(stats.getRecipients());
+            meterRegistry.counter("orders.fanout.messages", "outcome", "delivered").increment(stats.getDelivered());
+            meterRegistry.counter("orders.fanout.messages", "outcome", "failed").increment(stats.getFailed());
+            meterRegistry.timer("orders.fanout").record(stats.getDurationMs(), TimeUnit.MILLISECONDS);
+            log.info("Order {} fan-out finished: {}/{} delivered, {} failed in {} ms",
+                    order.getId(), stats.getDelivered(), stats.getRecipients(), stats.getFailed(), stats.getDurationMs());
+            return stats;
+        });
+    }
+
+    public NotificationStats getStats(Long orderId) {
+        FanoutRun run = runs.get(orderId);
+        return run != null ? run.snapshot() : null;
+    }
+
+    private CompletableFuture<Void> sendBatch(Order order, List<Long> batch, String text, FanoutRun run) {
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Long executorId = batch.get(i);
+            sends[i] = telegramBotService.sendAcceptOrderMessage(executorId, order.getId(), text)
+                    .handle((sent, e) -> {
+                        if (e == null) {
+                            run.delivered.incrementAndGet();
+                        } else {
+                            run.failed.incrementAndGet();
+                            log.warn("Failed to send notification to executor {}: {}", executorId, e.getMessage());
+                        }
+                        return null;
+                    });
+        }
+        return CompletableFuture.allOf(sends);
+    }
+
+    // Текст собирается один раз на заказ; public - для NotificationFanoutBenchmark
+    public static String notificationText(Order order) {
+        return "🎯 Появился новый заказ по вашей специальности!\n\n" +
+                "📚 Предмет: " + order.getSubject() + "\n" +
+                "📚 Категория: " + order.getCategory() + "\n" +
+                "🏫 ВУЗ: " + order.getUniversity() + "\n" +
+                "📝 Описание: " + order.getDescription() + "\n" +
+                "💰 Цена: " + order.getPrice() + "\n" +
+                "💼 [Перейти к доступным заказам](" + AVAILABLE_ORDERS_LINK + ")";
+    }
+
+    private static final class FanoutRun {
+        private final Long orderId;
+        private final String category;
+        private final int recipients;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startedNanos = System.nanoTime();
+        private final AtomicInteger delivered = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile long durationMs = -1;
+
+        private FanoutRun(Order order, int recipients) {
+            this.orderId = order.getId();
+            this.category = order.getCategory();
+            this.recipients = recipients;
+        }
+
+        private NotificationStats finish() {
+            durationMs = (System.nanoTime() - startedNanos) / 1_000_000;
+            return snapshot();
+        }
+
+        private NotificationStats snapshot() {
+            boolean completed = durationMs >= 0;
+            long elapsed = completed ? durationMs : (System.nanoTime() - startedNanos) / 1_000_000;
+            return new NotificationStats(orderId, category, recipients, delivered.get(), failed.get(),
+                    completed, startedAt, elapsed);
+        }
+    }
+}
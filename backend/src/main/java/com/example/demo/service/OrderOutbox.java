@@ -0,0 +1,275 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.OutboxMessage;
+import com.example.demo.repository.OutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Transactional outbox побочных эффектов заказов: уведомления в Telegram и создание чата.
+ * <p>
+ * Событие записывается в order_outbox в той же транзакции, что и изменение заказа, поэтому
+ * откат не порождает уведомлений, а падение после commit их не теряет. Фоновый relay забирает
+ * записи пачками в аренду (FOR UPDATE SKIP LOCKED - каждую запись обрабатывает один инстанс)
+ * и передает обработчику. Доставка at-least-once: запись, не отмеченная отправленной до конца
+ * аренды, будет обработана повторно, повторная запись того же события отсекается dedup-ключом.
+ * <p>
+ * Пока обработчик работает, аренда записи продлевается каждые lease-ms/3: рассылка ORDER_CREATED
+ * тысячам исполнителей при 30 сообщениях/с идет дольше аренды, и без продления запись забрал бы
+ * повторно другой проход, а исполнители получили бы уведомление дважды. Аренда истекает, только если
+ * инстанс упал. Записи, исчерпавшие max-attempts, больше не забираются: их число публикуется
+ * (orders.outbox.exhausted) и пишется в журнал, а удаляются они вместе с отправленными через retention-hours.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+    public static final String ORDER_CREATED = "order-created";
+    public static final String ORDER_ACCEPTED = "order-accepted";
+    public static final String ORDER_COMPLETED = "order-completed";
+
+    private final OutboxRepository outboxRepository;
+
+    @Value("${app.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-in-flight:500}")
+    private int maxInFlight;
+
+    @Value("${app.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    @Value("${app.outbox.retention-hours:168}")
+    private long retentionHours;
+
+    // Отправленные записи отмечаются одним UPDATE на следующем проходе relay
+    private final Queue<Long> sent = new ConcurrentLinkedQueue<>();
+    // Записи в работе у обработчика, их аренда продлевается
+    private final Set<Long> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final AtomicBoolean wakeUpScheduled = new AtomicBoolean();
+
+    private volatile Function<OutboxMessage, CompletableFuture<?>> handler;
+    private ScheduledExecutorService relay;
+
+    @PostConstruct
+    public void start() {
+        relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relay.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        long renewMs = Math.max(leaseMs / 3, 1);
+        relay.scheduleWithFixedDelay(this::renewLeases, renewMs, renewMs, TimeUnit.MILLISECONDS);
+        relay.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        relay.shutdownNow();
+    }
+
+    /**
+     * Обработчик записи; запись считается доставленной, когда его future завершится успешно.
+     */
+    public void setHandler(Function<OutboxMessage, CompletableFuture<?>> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Записывает событие в текущую транзакцию; relay будит себя после ее commit.
+     *
+     * @param dedupKey ключ события: повторный вызов с тем же ключом ничего не добавляет
+     * @return false, если событие уже было записано
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean enqueue(String dedupKey, String eventType, Long orderId, String payload) {
+        boolean added = outboxRepository.insertIfAbsent(dedupKey, eventType, orderId, payload, LocalDateTime.now()) > 0;
+        if (!added) {
+            log.debug("Outbox event {} already recorded", dedupKey);
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeUp();
+            }
+        });
+        return true;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Записи, исчерпавшие попытки, на момент последней очистки.
+     */
+    public long getExhausted() {
+        return exhausted.get();
+    }
+
+    private void wakeUp() {
+        if (wakeUpScheduled.compareAndSet(false, true)) {
+            try {
+                relay.execute(this::poll);
+            } catch (RejectedExecutionException e) {
+                wakeUpScheduled.set(false);
+            }
+        }
+    }
+
+    private void poll() {
+        wakeUpScheduled.set(false);
+        Function<OutboxMessage, CompletableFuture<?>> current = handler;
+        if (current == null) {
+            return;
+        }
+
+        try {
+            flushSent();
+            // Пока пачки приходят полными, забираем следующие, но не больше maxInFlight записей в работе
+            int limit;
+            while ((limit = Math.min(batchSize, maxInFlight - inFlight.get())) > 0) {
+                LocalDateTime now = LocalDateTime.now();
+                List<OutboxMessage> batch = outboxRepository.claim(now, now.plus(leaseMs, ChronoUnit.MILLIS),
+                        maxAttempts, limit);
+                for (OutboxMessage message : batch) {
+                    dispatch(current, message);
+                }
+                if (batch.size() < limit) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error polling order outbox: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(Function<OutboxMessage, CompletableFuture<?>> current, OutboxMessage message) {
+        inFlight.incrementAndGet();
+        leased.add(message.getId());
+        CompletableFuture<?> result;
+        try {
+            result = current.apply(message);
+        } catch (Exception e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((ignored, e) -> {
+            leased.remove(message.getId());
+            inFlight.decrementAndGet();
+            if (e == null) {
+                sent.add(message.getId());
+            } else {
+                // Запись в БД - в потоке relay, а не в потоке отправителя Telegram
+                relay.execute(() -> release(message, e));
+            }
+        });
+    }
+
+    private void flushSent() {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = sent.poll()) != null) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            outboxRepository.markSent(ids, LocalDateTime.now());
+        } catch (Exception e) {
+            // Не отмеченные записи будут доставлены повторно после окончания аренды
+            log.error("Failed to mark {} outbox messages as sent: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private void release(OutboxMessage message, Throwable error) {
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        if (message.getAttempts() >= maxAttempts) {
+            log.error("Giving up on outbox event {} after {} attempts: {}",
+                    message.getDedupKey(), message.getAttempts(), reason);
+        } else {
+            log.warn("Outbox event {} failed (attempt {}/{}): {}",
+                    message.getDedupKey(), message.getAttempts(), maxAttempts, reason);
+        }
+
+        long delayMs = retryDelayMs << Math.min(message.getAttempts() - 1, 10);
+        try {
+            outboxRepository.release(message.getId(), LocalDateTime.now().plus(delayMs, ChronoUnit.MILLIS),
+                    reason.length() > 1000 ? reason.substring(0, 1000) : reason);
+        } catch (Exception e) {
+            log.error("Failed to reschedule outbox event {}: {}", message.getDedupKey(), e.getMessage());
+        }
+    }
+
+    private void renewLeases() {
+        if (leased.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(leased);
+        try {
+            outboxRepository.extendLease(ids, LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS));
+        } catch (Exception e) {
+            log.error("Failed to renew lease of {} outbox messages: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private void purge() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+            int deleted = outboxRepository.deleteSentBefore(before);
+            if (deleted > 0) {
+                log.info("Purged {} sent outbox messages", deleted);
+            }
+            int deletedExhausted = outboxRepository.deleteExhaustedBefore(maxAttempts, before);
+            if (deletedExhausted > 0) {
+                log.warn("Purged {} outbox messages that exhausted {} attempts", deletedExhausted, maxAttempts);
+            }
+            long count = outboxRepository.countExhausted(maxAttempts, LocalDateTime.now());
+            exhausted.set(count);
+            if (count > 0) {
+                log.error("{} outbox messages exhausted {} attempts and will not be delivered", count, maxAttempts);
+            }
+        } catch (Exception e) {
+            log.error("Error purging order outbox: {}", e.getMessage());
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package com.example.demo.service;
 
 import com.example.demo.TelegramBot.TelegramBotService;
+import com.example.demo.config.LogContext;
 import com.example.demo.dto.OrderRequest;
+import com.example.demo.dto.NotificationStats;
+import com.example.demo.dto.OrderCursor;
+import com.example.demo.dto.OrderEvent;
+import com.example.demo.dto.OrderPage;
+import com.example.demo.dto.OrderSummary;
 import com.example.demo.entity.Order;
-import com.example.demo.entity.Executor;
+import com.example.demo.entity.OrderStatus;
+import com.example.demo.entity.OutboxMessage;
 import com.example.demo.repository.OrderRepository;
-import com.example.demo.repository.ExecutorRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -24,9 +32,21 @@ import java.util.stream.Collectors;
 public class OrderService {
     private final OrderRepository orderRepository;
     private final TelegramBotService telegramBotService;
-    private final ExecutorRepository executorRepository;
     private final ChatService chatService;
+    private final OrderNotificationFanout orderNotificationFanout;
+    private final OpenOrdersReadModel openOrdersReadModel;
+    private final OrderEventHub orderEventHub;
+    private final OrderOutbox orderOutbox;
+
+    @PostConstruct
+    public void registerOutboxHandler() {
+        orderOutbox.setHandler(this::runSideEffect);
+    }
 
+    /**
+     * Сохраняет заказ; рассылка исполнителям уходит через outbox после commit.
+     */
+    @Transactional
     public Order createOrder(OrderRequest request) {
         log.info("🔄 Creating order for user: {}", request.getTelegramUserId());
 
@@ -38,7 +58,7 @@ public class OrderService {
         order.setCategory(request.getCategory());
         order.setDescription(request.getDescription());
         order.setPrice(request.getPrice());
-        order.setStatus("в поиске");
+        order.setStatus(OrderStatus.OPEN);
         order.setCreatedAt(LocalDateTime.now());
 
         log.debug("Order entity prepared - University: {}, Subject: {}, Category: {}",
@@ -47,9 +67,9 @@ public class OrderService {
         try {
             Order savedOrder = orderRepository.save(order);
             log.info("Order saved to database with ID: {}", savedOrder.getId());
-
-            // Асинхронное уведомление исполнителей
-            notifyExecutorsAboutNewOrderAsync(savedOrder);
+            orderOutbox.enqueue(OrderOutbox.ORDER_CREATED + ":" + savedOrder.getId(),
+                    OrderOutbox.ORDER_CREATED, savedOrder.getId(), null);
+            afterCommit(() -> orderChanged(OrderEvent.CREATED, savedOrder));
             return savedOrder;
         } catch (Exception e) {
             log.error("Error saving order to database: {}", e.getMessage(), e);
@@ -57,157 +77,282 @@ public class OrderService {
         }
     }
 
-    @Async
-    public CompletableFuture<Void> notifyExecutorsAboutNewOrderAsync(Order order) {
-        return CompletableFuture.runAsync(() -> {
-            notifyExecutorsAboutNewOrder(order);
-        });
+    public NotificationStats getNotificationStats(Long orderId) {
+        return orderNotificationFanout.getStats(orderId);
+    }
+
+    public List<Order> getOrdersByUser(Long telegramUserId) {
+        return orderRepository.findByTelegramUserIdOrderByCreatedAtDesc(telegramUserId);
+    }
+
+    /**
+     * Принимает заказ одним условным UPDATE: из одновременных откликов выигрывает ровно один.
+     * Чат и уведомления создаются только для победителя: событие пишется в outbox вместе с переходом.
+     *
+     * @throws IllegalStateException если заказ уже не в поиске (отклик опоздал)
+     */
+    @Transactional
+    public Order acceptOrder(Long orderId, Long executorId) {
+        int updated = orderRepository.acceptIfOpen(orderId, executorId, OrderStatus.OPEN, OrderStatus.ACCEPTED);
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        if (updated == 0) {
+            log.info("Order {} not accepted by executor {}: current status {}, executor {}",
+                    orderId, executorId, order.getStatus(), order.getExecutorId());
+            throw new IllegalStateException("Order " + orderId + " is no longer open: " + order.getStatus());
+        }
+
+        // Заказ может вернуться в поиск и быть принят другим исполнителем - это другое событие
+        orderOutbox.enqueue(OrderOutbox.ORDER_ACCEPTED + ":" + orderId + ":" + executorId,
+                OrderOutbox.ORDER_ACCEPTED, orderId, executorId.toString());
+        afterCommit(() -> orderChanged(OrderEvent.ACCEPTED, order));
+        log.info("Order {} accepted by executor {}", orderId, executorId);
+        return order;
     }
 
-    private void notifyExecutorsAboutNewOrder(Order order) {
+    // Обработчик записей outbox; future завершается, когда сообщения переданы отправителю Telegram.
+    // Ошибки доставки отдельных сообщений повторяет TelegramRetryQueue, outbox повторяет только
+    // необработанные события (исключение до передачи сообщений, падение инстанса)
+    private CompletableFuture<?> runSideEffect(OutboxMessage message) {
+        LogContext.put(LogContext.ORDER_ID, message.getOrderId());
         try {
-            List<Executor> executors = executorRepository.findByCategory(order.getCategory());
-            log.debug("Found {} executors for category: {}", executors.size(), order.getCategory());
-
-            // Убираем дубликаты по telegramUserId
-            Map<Long, Executor> uniqueExecutors = executors.stream()
-                    .collect(Collectors.toMap(
-                            Executor::getTelegramUserId,
-                            Function.identity(),
-                            (existing, replacement) -> existing // При дубликатах берем существующую запись
-                    ));
-
-            log.debug("After deduplication: {} unique executors", uniqueExecutors.size());
-
-            for (Executor executor : uniqueExecutors.values()) {
-                try {
-                    String availableOrdersLink = generateAvailableOrdersLink();
-
-                    telegramBotService.sendAcceptOrderMessage(
-                            executor.getTelegramUserId(),
-                            order.getId(),
-                            "🎯 Появился новый заказ по вашей специальности!\n\n" +
-                                    "📚 Предмет: " + order.getSubject() + "\n" +
-                                    "📚 Категория: " + order.getCategory() + "\n" +
-                                    "🏫 ВУЗ: " + order.getUniversity() + "\n" +
-                                    "📝 Описание: " + order.getDescription() + "\n" +
-                                    "💰 Цена: " + order.getPrice() + "\n"+
-                                    "💼 [Перейти к доступным заказам](" + availableOrdersLink + ")"
-                    );
-
-                    log.debug("Notification sent to executor: {}", executor.getTelegramUserId());
-                } catch (Exception e) {
-                    log.warn("Failed to send notification to executor {}: {}",
-                            executor.getTelegramUserId(), e.getMessage());
-                }
+            return dispatchSideEffect(message);
+        } finally {
+            LogContext.remove(LogContext.ORDER_ID);
+        }
+    }
+
+    private CompletableFuture<?> dispatchSideEffect(OutboxMessage message) {
+        Order order = orderRepository.findById(message.getOrderId()).orElse(null);
+        if (order == null) {
+            log.info("Skipping outbox event {}: order deleted", message.getDedupKey());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return switch (message.getEventType()) {
+            case OrderOutbox.ORDER_CREATED -> order.getStatus() == OrderStatus.OPEN
+                    ? orderNotificationFanout.publish(order)
+                    : CompletableFuture.completedFuture(null);
+            case OrderOutbox.ORDER_ACCEPTED -> createAcceptedOrderChat(order, Long.valueOf(message.getPayload()));
+            case OrderOutbox.ORDER_COMPLETED -> sendCompletionMessages(order);
+            default -> {
+                log.warn("Unknown outbox event type {}", message.getEventType());
+                yield CompletableFuture.completedFuture(null);
             }
+        };
+    }
+
+    // Повторный вызов не создает второй чат: createChatSession возвращает существующую сессию
+    private CompletableFuture<?> createAcceptedOrderChat(Order order, Long executorId) {
+        try {
+            chatService.createChatSession(order.getTelegramUserId(), executorId, order.getId());
+
+            log.info("Chat session created for order {} between {} and {}",
+                    order.getId(), order.getTelegramUserId(), executorId);
+
+            return CompletableFuture.allOf(
+                    telegramBotService.sendMessageAsync(
+                            order.getTelegramUserId(),
+                            "✅ Ваш заказ принят!\n\n" +
+                                    "Исполнитель готов приступить к работе. " +
+                                    "Для общения используйте анонимный чат с ботом @" +
+                                    telegramBotService.getBotUsername() + "\n\n" +
+                                    "Команды чата:\n" +
+                                    "/sessions - список ваших чатов\n" +
+                                    "/close_chat - предложить закрыть чат"
+                    ),
+                    telegramBotService.sendMessageAsync(
+                            executorId,
+                            "✅ Вы приняли заказ!\n\n" +
+                                    "Для общения с заказчиком используйте анонимный чат с ботом @" +
+                                    telegramBotService.getBotUsername() + "\n\n" +
+                                    "Команды чата:\n" +
+                                    "/sessions - список ваших чатов\n" +
+                                    "/close_chat - предложить закрыть чат"
+                    )
+            ).exceptionally(ex -> {
+                log.warn("Error sending acceptance notifications: {}", ex.getMessage());
+                return null;
+            });
+
         } catch (Exception e) {
-            log.error("Error notifying executors: {}", e.getMessage(), e);
+            log.error("Error creating chat session for order {}: {}", order.getId(), e.getMessage(), e);
+
+            // Отправляем уведомление об ошибке
+            return telegramBotService.sendMessageAsync(
+                    executorId,
+                    "⚠️ Чат не был создан автоматически. " +
+                            "Вы можете начать общение через веб-интерфейс."
+            ).exceptionally(ex -> null);
         }
     }
 
-    private String generateAvailableOrdersLink() {
-        return "https://t.me/studentsbotmainbot/student?startapp=available_orders";
+    private CompletableFuture<?> sendCompletionMessages(Order order) {
+        String completionMessage = "🏁 Заказ завершен. Спасибо за использование сервиса!";
 
+        CompletableFuture<?> customer = telegramBotService.sendMessageAsync(order.getTelegramUserId(), completionMessage);
+        CompletableFuture<?> executor = order.getExecutorId() != null
+                ? telegramBotService.sendMessageAsync(order.getExecutorId(), completionMessage)
+                : CompletableFuture.completedFuture(null);
+        return CompletableFuture.allOf(customer, executor).exceptionally(ex -> {
+            log.warn("Error sending completion notifications for order {}: {}", order.getId(), ex.getMessage());
+            return null;
+        });
     }
 
-    public List<Order> getOrdersByUser(Long telegramUserId) {
-        return orderRepository.findByTelegramUserIdOrderByCreatedAtDesc(telegramUserId);
+    /**
+     * Страница заказов пользователя от новых к старым (status = null - все статусы).
+     */
+    public OrderPage getUserOrdersPage(Long telegramUserId, OrderStatus status, String cursor, int size) {
+        OrderCursor after = OrderCursor.parse(cursor);
+        List<OrderSummary> rows = status == null
+                ? orderRepository.findUserSummaries(telegramUserId, after.createdAt(), after.id(), pageOf(size))
+                : orderRepository.findUserSummariesByStatus(telegramUserId, status, after.createdAt(), after.id(), pageOf(size));
+        return toPage(rows, size);
     }
 
-    public Order acceptOrder(Long orderId, Long executorId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+    /**
+     * Страница открытых заказов из БД от новых к старым (category = null - все категории).
+     */
+    public OrderPage getOpenOrderSummaries(String category, String cursor, int size) {
+        OrderCursor after = OrderCursor.parse(cursor);
+        List<OrderSummary> rows = category == null
+                ? orderRepository.findStatusSummaries(OrderStatus.OPEN, after.createdAt(), after.id(), pageOf(size))
+                : orderRepository.findStatusCategorySummaries(OrderStatus.OPEN, category,
+                        after.createdAt(), after.id(), pageOf(size));
+        return toPage(rows, size);
+    }
 
-        order.setStatus("принят исполнителем");
-        order.setExecutorId(executorId);
-
-        CompletableFuture.runAsync(() -> {
-            try {
-
-                chatService.createChatSession(order.getTelegramUserId(), executorId,order.getId());
-
-                log.info("Chat session created for order {} between {} and {}",
-                        orderId, order.getTelegramUserId(), executorId);
-
-
-                CompletableFuture.allOf(
-                        telegramBotService.sendMessageAsync(
-                                order.getTelegramUserId(),
-                                "✅ Ваш заказ принят!\n\n" +
-                                        "Исполнитель готов приступить к работе. " +
-                                        "Для общения используйте анонимный чат с ботом @" +
-                                        telegramBotService.getBotUsername() + "\n\n" +
-                                        "Команды чата:\n" +
-                                        "/sessions - список ваших чатов\n" +
-                                        "/close_chat - предложить закрыть чат"
-                        ),
-                        telegramBotService.sendMessageAsync(
-                                executorId,
-                                "✅ Вы приняли заказ!\n\n" +
-                                        "Для общения с заказчиком используйте анонимный чат с ботом @" +
-                                        telegramBotService.getBotUsername() + "\n\n" +
-                                        "Команды чата:\n" +
-                                        "/sessions - список ваших чатов\n" +
-                                        "/close_chat - предложить закрыть чат"
-                        )
-                ).exceptionally(ex -> {
-                    log.warn("Error sending acceptance notifications: {}", ex.getMessage());
-                    return null;
-                });
-
-            } catch (Exception e) {
-                log.error("Error creating chat session for order {}: {}", orderId, e.getMessage(), e);
-
-                // Отправляем уведомление об ошибке
-                telegramBotService.sendMessageAsync(
-                        executorId,
-                        "⚠️ Чат не был создан автоматически. " +
-                                "Вы можете начать общение через веб-интерфейс."
-                );
-            }
-        });
+    // На одну строку больше страницы, чтобы узнать, есть ли следующая
+    private static Pageable pageOf(int size) {
+        return PageRequest.of(0, size + 1);
+    }
 
-        Order savedOrder = orderRepository.save(order);
-        log.info("Order {} accepted by executor {}", orderId, executorId);
-        return savedOrder;
+    private static OrderPage toPage(List<OrderSummary> rows, int size) {
+        if (rows.size() <= size) {
+            return new OrderPage(rows, null);
+        }
+        List<OrderSummary> items = rows.subList(0, size);
+        return new OrderPage(List.copyOf(items), OrderCursor.after(items.get(size - 1)).format());
     }
 
     public List<Order> getActiveOrdersByUser(Long telegramUserId) {
-        return orderRepository.findByTelegramUserIdAndStatus(telegramUserId, "в поиске");
+        return orderRepository.findByTelegramUserIdAndStatus(telegramUserId, OrderStatus.OPEN);
     }
 
     public List<Order> getCompletedOrdersByUser(Long telegramUserId) {
-        return orderRepository.findByTelegramUserIdAndStatus(telegramUserId, "завершен");
+        return orderRepository.findByTelegramUserIdAndStatus(telegramUserId, OrderStatus.COMPLETED);
     }
 
     public List<Order> getAllActiveOrders() {
-        return orderRepository.findByStatus("в поиске");
+        return openOrdersReadModel.getOpenOrders(null, null, 0, -1);
+    }
+
+    /**
+     * Страница ленты открытых заказов из read-модели, от новых к старым.
+     *
+     * @param category      null - все категории
+     * @param excludeUserId заказы этого пользователя не показываются (null - без фильтра)
+     */
+    public List<Order> getOpenOrdersPage(String category, Long excludeUserId, int page, int size) {
+        return openOrdersReadModel.getOpenOrders(category, excludeUserId, page * size, size);
     }
 
-    public Order updateOrderStatus(Long orderId, String status) {
+    /**
+     * @throws IllegalStateException если переход из текущего статуса не разрешен
+     */
+    @Transactional
+    public Order updateOrderStatus(Long orderId, OrderStatus status) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
 
-        String oldStatus = order.getStatus();
-        order.setStatus(status);
+        OrderStatus oldStatus = order.getStatus();
+        checkTransition(order, status);
+
+        // Условный UPDATE: из двух одновременных смен статуса проходит только первая
+        int updated = switch (status) {
+            case OPEN -> orderRepository.reopenIf(orderId, oldStatus, OrderStatus.OPEN);
+            case COMPLETED -> orderRepository.completeIf(orderId, oldStatus, OrderStatus.COMPLETED, LocalDateTime.now());
+            default -> orderRepository.updateStatusIf(orderId, oldStatus, status);
+        };
+        if (updated == 0) {
+            throw new IllegalStateException("Order " + orderId + " status changed concurrently, expected " + oldStatus);
+        }
 
-        if ("завершен".equals(status)) {
-            order.setCompletedAt(LocalDateTime.now());
+        if (status == OrderStatus.COMPLETED) {
+            orderOutbox.enqueue(OrderOutbox.ORDER_COMPLETED + ":" + orderId,
+                    OrderOutbox.ORDER_COMPLETED, orderId, null);
+        }
 
-            CompletableFuture.runAsync(() -> {
-                String completionMessage = "🏁 Заказ завершен. Спасибо за использование сервиса!";
+        Order savedOrder = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        afterCommit(() -> orderChanged(OrderEvent.STATUS_CHANGED, savedOrder));
+        log.info("Order {} status changed from {} to {}", orderId, oldStatus, status);
+        return savedOrder;
+    }
 
-                if (order.getExecutorId() != null) {
-                    telegramBotService.sendMessageAsync(order.getExecutorId(), completionMessage);
+    /**
+     * Сохраняет статус платежа, если он продвигает платеж вперед.
+     * Уведомления Тинькофф могут приходить не по порядку, поздний AUTHORIZED не должен затирать CONFIRMED.
+     *
+     * @return true, если статус заказа изменился
+     */
+    public boolean updatePaymentStatus(Long orderId, String paymentId, String paymentStatus) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+
+        String oldStatus = order.getPaymentStatus();
+        if (paymentStatusRank(paymentStatus) <= paymentStatusRank(oldStatus)) {
+            log.info("Order {} payment status {} ignored, current: {}", orderId, paymentStatus, oldStatus);
+            return false;
+        }
+
+        order.setPaymentId(paymentId);
+        order.setPaymentStatus(paymentStatus);
+        openOrdersReadModel.put(orderRepository.save(order));
+        log.info("Order {} payment status changed from {} to {}", orderId, oldStatus, paymentStatus);
+        return true;
+    }
+
+    private int paymentStatusRank(String paymentStatus) {
+        if (paymentStatus == null) {
+            return 0;
+        }
+        return switch (paymentStatus) {
+            case "NEW", "FORM_SHOWED" -> 1;
+            case "AUTHORIZED" -> 2;
+            case "CONFIRMED", "REJECTED", "CANCELED", "DEADLINE_EXPIRED" -> 3;
+            case "PARTIAL_REFUNDED" -> 4;
+            case "REFUNDED", "REVERSED" -> 5;
+            default -> 1;
+        };
+    }
+
+    // Read-модель и SSE-подписчики видят изменение только после commit
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
                 }
-                telegramBotService.sendMessageAsync(order.getTelegramUserId(), completionMessage);
             });
+        } else {
+            action.run();
         }
+    }
 
-        Order savedOrder = orderRepository.save(order);
-        log.info("Order {} status changed from {} to {}", orderId, oldStatus, status);
-        return savedOrder;
+    private static void checkTransition(Order order, OrderStatus next) {
+        if (!order.getStatus().canTransitionTo(next)) {
+            throw new IllegalStateException("Order " + order.getId() + " cannot change status from "
+                    + order.getStatus() + " to " + next);
+        }
+    }
+
+    // Read-модель ленты и SSE-подписчики узнают об изменении заказа сразу после commit
+    private void orderChanged(String eventType, Order order) {
+        openOrdersReadModel.put(order);
+        orderEventHub.publish(OrderEvent.of(eventType, order));
     }
 
     public String getAmountByOrderId(Long orderId) {
@@ -219,8 +364,7 @@ public class OrderService {
     public List<Order> getActiveOrdersByCategory(String category, Long telegramUserId) {
         log.debug("Getting active orders by category: {} for user: {}", category, telegramUserId);
 
-        List<Order> orders = orderRepository.findByTelegramUserIdNotAndStatusAndCategory(
-                telegramUserId, "в поиске", category);
+        List<Order> orders = openOrdersReadModel.getOpenOrders(category, telegramUserId, 0, -1);
 
         log.debug("Found {} orders for category: {}", orders.size(), category);
         return orders;
@@ -230,13 +374,15 @@ public class OrderService {
         log.info("Deleting order with ID: {}", orderId);
 
         try {
-            boolean exists = orderRepository.existsById(orderId);
-            if (!exists) {
+            Order order = orderRepository.findById(orderId).orElse(null);
+            if (order == null) {
                 log.warn("Order not found with id: {}", orderId);
                 throw new RuntimeException("Order not found with id: " + orderId);
             }
 
             orderRepository.deleteById(orderId);
+            openOrdersReadModel.remove(orderId);
+            orderEventHub.publish(OrderEvent.of(OrderEvent.DELETED, order));
             log.info("Order successfully deleted: {}", orderId);
 
         } catch (Exception e) {
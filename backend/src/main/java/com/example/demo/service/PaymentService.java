@@ -0,0 +1,51 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentRequest;
+import com.example.demo.dto.TinkoffInitRequest;
+import com.example.demo.dto.TinkoffInitResponse;
+import com.example.demo.entity.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Создание платежных ссылок. Вызывается напрямую и ботом, и PaymentController.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentService {
+    private final OrderService orderService;
+    private final TinkoffClient tinkoffClient;
+    private final TinkoffTokenSigner tokenSigner;
+
+    @Value("${tinkoff.terminal.key:}")
+    private String terminalKey;
+
+    public TinkoffInitResponse createPaymentLink(PaymentRequest request) {
+        orderService.updateOrderStatus(Long.valueOf(request.getOrderNumber()), OrderStatus.PAYMENT_LINK_SENT);
+
+        String orderId = String.format("%s-n%s-%s-%s",
+                request.getUserIdTo(),
+                request.getOrderNumber(),
+                request.getUserIdFrom(),
+                request.getDate()
+        );
+
+        TinkoffInitRequest tinkoffRequest = new TinkoffInitRequest();
+        tinkoffRequest.setAmount(request.getAmount().toString());
+        tinkoffRequest.setDescription("Оплата заказа на платформе");
+        tinkoffRequest.setOrderId(orderId);
+        tinkoffRequest.setTerminalKey(terminalKey);
+        tinkoffRequest.setToken(tokenSigner.sign(Map.of(
+                "TerminalKey", tinkoffRequest.getTerminalKey(),
+                "Amount", tinkoffRequest.getAmount(),
+                "OrderId", tinkoffRequest.getOrderId(),
+                "Description", tinkoffRequest.getDescription())));
+
+        return tinkoffClient.init(tinkoffRequest);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.service;
+
+import com.example.demo.TelegramBot.TelegramBotService;
+import com.example.demo.dto.PaymentOrderId;
+import com.example.demo.dto.PaymentStatusRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Обработка уведомлений Тинькофф о статусе платежа.
+ * <p>
+ * Тинькофф повторяет уведомление, пока не получит "OK", поэтому каждая пара PaymentId+Status
+ * фиксируется в Redis (SETNX с TTL) и обрабатывается один раз. Контроллер отвечает сразу,
+ * а запись статуса в заказ и сообщение в Telegram выполняются асинхронно.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentStatusService {
+    private static final String PROCESSED_KEY = "payment:status:";
+
+    private final TinkoffTokenSigner tokenSigner;
+    private final OrderService orderService;
+    private final TelegramBotService telegramBotService;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${tinkoff.notification.dedup-ttl-seconds:604800}")
+    private long dedupTtlSeconds;
+
+    public boolean verify(PaymentStatusRequest request) {
+        try {
+            return tokenSigner.verify(request.toSignedFields(), request.getToken());
+        } catch (Exception e) {
+            log.error("Ошибка проверки подписи уведомления {}: {}", request.getPaymentId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return false, если уведомление с таким PaymentId и Status уже принято
+     */
+    public boolean markReceived(PaymentStatusRequest request) {
+        Boolean first = stringRedisTemplate.opsForValue()
+                .setIfAbsent(processedKey(request), "1", Duration.ofSeconds(dedupTtlSeconds));
+        return !Boolean.FALSE.equals(first);
+    }
+
+    @Async
+    public void process(PaymentStatusRequest request, PaymentOrderId orderId) {
+        try {
+            boolean changed = orderService.updatePaymentStatus(
+                    orderId.orderNumber(), request.getPaymentId(), request.getStatus());
+
+            if (changed && "CONFIRMED".equals(request.getStatus())) {
+                telegramBotService.sendMessage(orderId.userIdTo(), "Успешная оплата заказа " + orderId.orderNumber());
+            }
+        } catch (Exception e) {
+            log.error("Ошибка обработки статуса {} платежа {}: {}",
+                    request.getStatus(), request.getPaymentId(), e.getMessage(), e);
+            // Уведомление можно будет обработать повторно
+            stringRedisTemplate.delete(processedKey(request));
+        }
+    }
+
+    private String processedKey(PaymentStatusRequest request) {
+        return PROCESSED_KEY + request.getPaymentId() + ":" + request.getStatus();
+    }
+}
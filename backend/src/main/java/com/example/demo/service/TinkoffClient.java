@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CircuitBreaker;
+import com.example.demo.dto.TinkoffInitRequest;
+import com.example.demo.dto.TinkoffInitResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * HTTP-клиент эквайринга Тинькофф. Вызовы идут через общий пул соединений
+ * и circuit breaker: при недоступности API запросы отклоняются сразу, без ожидания таймаутов.
+ */
+@Slf4j
+@Component
+public class TinkoffClient {
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tinkoff.api.url:https://securepay.tinkoff.ru/v2}")
+    private String apiUrl;
+
+    public TinkoffClient(RestTemplate restTemplate, MeterRegistry meterRegistry,
+                         @Value("${tinkoff.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                         @Value("${tinkoff.circuit-breaker.open-duration-ms:30000}") long openDurationMs) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        // Ответы 4xx - ошибка запроса, а не недоступность API, цепь из-за них не размыкается
+        this.circuitBreaker = new CircuitBreaker("tinkoff", failureThreshold, openDurationMs,
+                e -> e instanceof ResourceAccessException || e instanceof HttpServerErrorException);
+    }
+
+    public TinkoffInitResponse init(TinkoffInitRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            TinkoffInitResponse response = circuitBreaker.call(() ->
+                    restTemplate.postForObject(apiUrl + "/Init", request, TinkoffInitResponse.class));
+            log.debug("Tinkoff Init response for order {}: {}", request.getOrderId(), response);
+            return response;
+        } catch (CircuitBreaker.OpenException e) {
+            outcome = "circuit-open";
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("tinkoff.requests", "method", "Init", "outcome", outcome));
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Подпись запросов и проверка уведомлений Тинькофф: SHA-256 от значений корневых скалярных полей
+ * вместе с Password, отсортированных по имени поля. Вложенные объекты (Receipt, DATA) и сам Token не участвуют.
+ * <p>
+ * Подпись и проверка идут одним путем без промежуточных строк: ключи сортируются в буфере,
+ * значения кодируются в UTF-8 прямо в MessageDigest, пароль терминала закодирован заранее.
+ * Проверка сравнивает хеш с hex-токеном за постоянное время, не собирая строку токена.
+ * <p>
+ * Буферы и MessageDigest берутся из общего пула, а не из ThreadLocal: при app.threads.mode=virtual
+ * каждая задача идет в новом виртуальном потоке, и ThreadLocal создавал бы их заново на каждый вызов.
+ */
+@Component
+public class TinkoffTokenSigner {
+    private static final String TOKEN_FIELD = "Token";
+    private static final String PASSWORD_FIELD = "Password";
+    private static final int HASH_LENGTH = 32;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    // Больше одновременных вызовов, чем ядер, не бывает надолго; лишние буферы после вызова отбрасываются
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final BlockingQueue<Workspace> workspaces = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    @Value("${tinkoff.terminal.password:}")
+    private String terminalPassword;
+
+    private byte[] passwordBytes;
+
+    @PostConstruct
+    public void init() {
+        passwordBytes = terminalPassword.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String sign(Map<String, ?> fields) {
+        Workspace workspace = acquire();
+        try {
+            byte[] hash = digest(fields, workspace);
+            byte[] hex = workspace.hex;
+            for (int i = 0; i < HASH_LENGTH; i++) {
+                hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0x0f];
+                hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0x0f];
+            }
+            return new String(hex, StandardCharsets.US_ASCII);
+        } finally {
+            release(workspace);
+        }
+    }
+
+    public boolean verify(Map<String, ?> fields, String token) {
+        if (token == null || token.length() != HASH_LENGTH * 2) {
+            return false;
+        }
+        Workspace workspace = acquire();
+        try {
+            byte[] hash = digest(fields, workspace);
+            int diff = 0;
+            for (int i = 0; i < HASH_LENGTH; i++) {
+                int high = hexValue(token.charAt(i * 2));
+                int low = hexValue(token.charAt(i * 2 + 1));
+                // Некорректный символ дает отрицательное значение и выставляет старшие биты diff
+                diff |= ((high << 4) | low) ^ (hash[i] & 0xff);
+            }
+            return diff == 0;
+        } finally {
+            release(workspace);
+        }
+    }
+
+    private Workspace acquire() {
+        Workspace workspace = workspaces.poll();
+        return workspace != null ? workspace : new Workspace();
+    }
+
+    private void release(Workspace workspace) {
+        // После исключения посреди digest() в MessageDigest могли остаться данные
+        workspace.digest.reset();
+        workspaces.offer(workspace);
+    }
+
+    private byte[] digest(Map<String, ?> fields, Workspace workspace) {
+        workspace.ensureFields(fields.size() + 1);
+        String[] keys = workspace.keys;
+        Object[] values = workspace.values;
+
+        int count = 0;
+        for (Map.Entry<String, ?> field : fields.entrySet()) {
+            String key = field.getKey();
+            Object value = field.getValue();
+            if (TOKEN_FIELD.equals(key) || PASSWORD_FIELD.equals(key) || value == null
+                    || value instanceof Map || value instanceof Collection) {
+                continue;
+            }
+            keys[count] = key;
+            values[count] = value;
+            count++;
+        }
+        keys[count] = PASSWORD_FIELD;
+        values[count] = passwordBytes;
+        count++;
+
+        // Полей около десятка - сортировка вставками без аллокаций
+        for (int i = 1; i < count; i++) {
+            String key = keys[i];
+            Object value = values[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j].compareTo(key) > 0) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+
+        MessageDigest digest = workspace.digest;
+        for (int i = 0; i < count; i++) {
+            update(digest, values[i], workspace);
+        }
+        Arrays.fill(keys, 0, count, null);
+        Arrays.fill(values, 0, count, null);
+
+        try {
+            digest.digest(workspace.hash, 0, HASH_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        return workspace.hash;
+    }
+
+    private static void update(MessageDigest digest, Object value, Workspace workspace) {
+        if (value instanceof byte[] bytes) {
+            digest.update(bytes);
+        } else if (value instanceof Boolean flag) {
+            digest.update(flag ? TRUE : FALSE);
+        } else if (value instanceof Long || value instanceof Integer) {
+            updateDecimal(digest, ((Number) value).longValue(), workspace.buffer);
+        } else {
+            CharSequence text = value instanceof CharSequence chars ? chars : String.valueOf(value);
+            byte[] buffer = workspace.buffer(text.length() * 3);
+            digest.update(buffer, 0, encodeUtf8(text, buffer));
+        }
+    }
+
+    // Как Long.toString: цифры считаются в отрицательной области, чтобы не переполниться на Long.MIN_VALUE
+    private static void updateDecimal(MessageDigest digest, long value, byte[] buffer) {
+        int position = 20;
+        boolean negative = value < 0;
+        long rest = negative ? value : -value;
+        do {
+            buffer[--position] = (byte) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        digest.update(buffer, position, 20 - position);
+    }
+
+    // Как String.getBytes(UTF_8): одиночная суррогатная половина заменяется на '?'
+    private static int encodeUtf8(CharSequence text, byte[] buffer) {
+        int length = text.length();
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    buffer[position++] = '?';
+                }
+            } else {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return position;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    // Буферы одного вызова: MessageDigest после digest() сбрасывается и переиспользуется
+    private static final class Workspace {
+        private final MessageDigest digest;
+        private final byte[] hash = new byte[HASH_LENGTH];
+        private final byte[] hex = new byte[HASH_LENGTH * 2];
+        private byte[] buffer = new byte[256];
+        private String[] keys = new String[16];
+        private Object[] values = new Object[16];
+
+        private Workspace() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void ensureFields(int size) {
+            if (keys.length < size) {
+                keys = new String[size];
+                values = new Object[size];
+            }
+        }
+
+        private byte[] buffer(int size) {
+            if (buffer.length < size) {
+                buffer = new byte[Math.max(size, buffer.length * 2)];
+            }
+            return buffer;
+        }
+    }
+}
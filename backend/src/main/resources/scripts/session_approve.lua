@@ -0,0 +1,70 @@
+-- Подтверждение участника (выполнение условий или закрытие чата) одним атомарным шагом.
+-- Множества одобрений хранятся Spring Data Redis как поля <set>.[i] hash'а ChatSession.
+-- KEYS[1] - ChatSession:<id>, других ключей скрипт не трогает (индексы Spring Data Redis обновляет вызывающий код)
+-- ARGV[1] - userId, ARGV[2] - lastActivity в формате репозитория
+-- ARGV[3] - completion | close | close-final (close-final переводит сессию в CLOSED при двух подтверждениях)
+-- Результат: {код, подтверждений в множестве, подтверждений выполнения}
+--   код: -1 сессии нет, -2 пользователь не участник, -3 нет оплаты, -4 выполнение подтвердили не все,
+--         1 подтверждение учтено, 2 сессия закрыта
+local flat = redis.call('HGETALL', KEYS[1])
+if #flat == 0 then
+    return {-1, 0, 0}
+end
+local session = {}
+for i = 1, #flat, 2 do
+    session[flat[i]] = flat[i + 1]
+end
+
+local userId = ARGV[1]
+if session['user1Id'] ~= userId and session['user2Id'] ~= userId then
+    return {-2, 0, 0}
+end
+
+local function members(name)
+    local prefix = name .. '.['
+    local count, contains = 0, false
+    for field, value in pairs(session) do
+        if string.sub(field, 1, #prefix) == prefix then
+            count = count + 1
+            if value == userId then
+                contains = true
+            end
+        end
+    end
+    return prefix, count, contains
+end
+
+local function add(name)
+    local prefix, count, contains = members(name)
+    if contains then
+        return count
+    end
+    local index = count
+    while session[prefix .. index .. ']'] do
+        index = index + 1
+    end
+    redis.call('HSET', KEYS[1], prefix .. index .. ']', userId)
+    return count + 1
+end
+
+local paid = session['paid'] == '1' or session['paid'] == 'true'
+local _, completions = members('completionApprovals')
+
+if ARGV[3] == 'completion' then
+    if not paid then
+        return {-3, completions, completions}
+    end
+    completions = add('completionApprovals')
+    redis.call('HSET', KEYS[1], 'lastActivity', ARGV[2])
+    return {1, completions, completions}
+end
+
+if paid and completions < 2 then
+    return {-4, 0, completions}
+end
+local approvals = add('closeApprovals')
+if ARGV[3] == 'close-final' and approvals >= 2 then
+    redis.call('HSET', KEYS[1], 'status', 'CLOSED', 'lastActivity', ARGV[2])
+    return {2, approvals, completions}
+end
+return {1, approvals, completions}
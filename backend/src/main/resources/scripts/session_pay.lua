@@ -0,0 +1,15 @@
+-- Отметка оплаты сессии: check-and-set поля paid в hash ChatSession.
+-- KEYS[1] - ChatSession:<id>; ARGV[1] - userId, ARGV[2] - lastActivity в формате репозитория
+-- Результат: -1 сессии нет, -2 пользователь не участник, 0 уже оплачено, 1 оплата отмечена
+local session = redis.call('HMGET', KEYS[1], 'user1Id', 'user2Id', 'paid')
+if not session[1] and not session[2] then
+    return -1
+end
+if session[1] ~= ARGV[1] and session[2] ~= ARGV[1] then
+    return -2
+end
+if session[3] == '1' or session[3] == 'true' then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'paid', '1', 'lastActivity', ARGV[2])
+return 1
@@ -0,0 +1,14 @@
+-- Обновление lastActivity без перезаписи всей сессии; истекшая сессия не создается заново.
+-- KEYS[1] - ChatSession:<id>, KEYS[2..] - user:active:sessions:<userId> участников
+-- ARGV[1] - lastActivity в формате репозитория, ARGV[2] - score индекса (epoch ms), ARGV[3] - TTL индексов (сек),
+-- ARGV[4] - id сессии в формате элементов индекса (сериализатор значений redisTemplate)
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'lastActivity', ARGV[1])
+for i = 2, #KEYS do
+    -- XX: закрытая и уже убранная из индекса сессия туда не возвращается
+    redis.call('ZADD', KEYS[i], 'XX', ARGV[2], ARGV[4])
+    redis.call('EXPIRE', KEYS[i], ARGV[3])
+end
+return 1
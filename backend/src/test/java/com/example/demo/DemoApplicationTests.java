@@ -1,8 +1,11 @@
 package com.example.demo;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+// Поднимает весь контекст: нужны Postgres, Redis и токен бота. Запуск: ./gradlew integrationTest
+@Tag("integration")
 @SpringBootTest
 class DemoApplicationTests {
 
@@ -0,0 +1,70 @@
+package com.example.demo.TelegramBot;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Локальный стаб Telegram Bot API для интеграционных тестов.
+ * Запоминает все вызовы (метод + тело запроса) и отвечает заданным JSON, по умолчанию {"ok":true,"result":true}.
+ * Бот направляется на стаб через telegram.bot.api-url=getApiUrl().
+ */
+public class StubTelegramServer implements AutoCloseable {
+    private static final String DEFAULT_RESPONSE = "{\"ok\":true,\"result\":true}";
+
+    private final HttpServer server;
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+
+    public StubTelegramServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    public void respond(String method, String json) {
+        responses.put(method, json);
+    }
+
+    public List<Call> getCalls() {
+        return calls;
+    }
+
+    public List<Call> getCalls(String method) {
+        return calls.stream().filter(call -> call.method().equals(method)).toList();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = path.substring(path.lastIndexOf('/') + 1);
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        calls.add(new Call(method, body));
+
+        byte[] response = responses.getOrDefault(method, DEFAULT_RESPONSE).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    public record Call(String method, String body) {
+    }
+}
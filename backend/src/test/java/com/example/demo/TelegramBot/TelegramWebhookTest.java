@@ -0,0 +1,93 @@
+package com.example.demo.TelegramBot;
+
+import com.example.demo.config.KeyedExecutor;
+import com.example.demo.service.ChatService;
+import com.example.demo.service.ChatSessionCache;
+import com.example.demo.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TelegramWebhookTest {
+    private StubTelegramServer telegram;
+    private TelegramBotService bot;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        telegram = new StubTelegramServer();
+        bot = new TelegramBotService(mock(ChatService.class), mock(OrderService.class),
+                mock(OutboundMessageDispatcher.class), mock(TelegramRetryQueue.class),
+                new KeyedExecutor(Runnable::run), mock(ChatSessionCache.class), new SimpleMeterRegistry(), "123:test", telegram.getApiUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        telegram.close();
+    }
+
+    @Test
+    void registersWebhookWithSecret() throws Exception {
+        bot.registerWebhook("https://bot.example.com/telegram/webhook", "s3cret", 40);
+
+        List<StubTelegramServer.Call> calls = telegram.getCalls("setWebhook");
+        assertEquals(1, calls.size());
+        assertTrue(calls.get(0).body().contains("https://bot.example.com/telegram/webhook"));
+        assertTrue(calls.get(0).body().contains("s3cret"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processesRedeliveredUpdateOnce() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(eq("telegram:update:42"), anyString(), any(Duration.class)))
+                .thenReturn(true, false);
+
+        TelegramBotService botSpy = spy(bot);
+        doReturn(true).when(botSpy).enqueueUpdate(any());
+        TelegramWebhookHandler handler = new TelegramWebhookHandler(botSpy, redis);
+        ReflectionTestUtils.setField(handler, "dedupTtlSeconds", 60L);
+
+        Update update = new Update();
+        update.setUpdateId(42);
+
+        assertTrue(handler.accept(update));
+        assertFalse(handler.accept(update));
+        verify(botSpy, times(1)).enqueueUpdate(update);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void releasesUpdateWhenChatQueueIsFull() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(eq("telegram:update:43"), anyString(), any(Duration.class))).thenReturn(true);
+
+        TelegramBotService botSpy = spy(bot);
+        doReturn(false).when(botSpy).enqueueUpdate(any());
+        TelegramWebhookHandler handler = new TelegramWebhookHandler(botSpy, redis);
+        ReflectionTestUtils.setField(handler, "dedupTtlSeconds", 60L);
+
+        Update update = new Update();
+        update.setUpdateId(43);
+
+        // Ключ снят - повторная доставка Telegram будет обработана, а не сочтена дублем
+        assertThrows(RejectedExecutionException.class, () -> handler.accept(update));
+        verify(redis).delete("telegram:update:43");
+    }
+}
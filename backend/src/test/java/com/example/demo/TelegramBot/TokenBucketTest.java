@@ -0,0 +1,46 @@
+package com.example.demo.TelegramBot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void reserveAllowsBurstThenSpacesCallsByRate() {
+        TokenBucket bucket = new TokenBucket(1, 3, 0);
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        // Резерв всегда списывает токен: следующие вызовы ждут по очереди, порядок сохраняется
+        assertEquals(SECOND, bucket.reserve(0));
+        assertEquals(2 * SECOND, bucket.reserve(0));
+        // Шестой вызов через секунду встает за пятым: его время - 3 с
+        assertEquals(2 * SECOND, bucket.reserve(SECOND));
+    }
+
+    @Test
+    void tryAcquireDoesNotGoIntoDebt() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+        assertEquals(0, bucket.waitNanos(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+        assertEquals(SECOND / 2, bucket.waitNanos(0));
+        assertFalse(bucket.tryAcquire(SECOND / 4));
+        assertEquals(SECOND / 4, bucket.waitNanos(SECOND / 4));
+        assertTrue(bucket.tryAcquire(SECOND / 2));
+    }
+
+    @Test
+    void bucketIsIdleOnceRefilled() {
+        TokenBucket bucket = new TokenBucket(1, 2, 0);
+        assertTrue(bucket.isIdle(0));
+        bucket.reserve(0);
+        assertFalse(bucket.isIdle(0));
+        assertFalse(bucket.isIdle(SECOND / 2));
+        assertTrue(bucket.isIdle(SECOND));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+    private final CompactRedisSerializer legacy = new CompactRedisSerializer(true);
+    private final CompactRedisSerializer compact = new CompactRedisSerializer(false);
+
+    @Test
+    void legacyModeWritesJdkFormat() {
+        String sessionId = "session_1718000000000_4821";
+        assertArrayEquals(jdk.serialize(sessionId), legacy.serialize(sessionId));
+        assertEquals(sessionId, jdk.deserialize(legacy.serialize(sessionId)));
+    }
+
+    @Test
+    void bothModesReadBothFormats() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("createdAt", LocalDateTime.of(2024, 6, 10, 12, 30));
+        for (CompactRedisSerializer reader : new CompactRedisSerializer[]{legacy, compact}) {
+            assertEquals("session_1", reader.deserialize(jdk.serialize("session_1")));
+            assertEquals("session_1", reader.deserialize(compact.serialize("session_1")));
+            assertEquals(value, reader.deserialize(compact.serialize(value)));
+            assertEquals(value, reader.deserialize(legacy.serialize(value)));
+        }
+    }
+
+    @Test
+    void valueSerializerDefaultsToLegacyWrites() {
+        assertTrue(CompactRedisSerializer.isJdkSerialized(RedisConfig.valueSerializer("jdk").serialize("s")));
+        assertTrue(CompactRedisSerializer.isJdkSerialized(RedisConfig.valueSerializer(null).serialize("s")));
+        assertFalse(CompactRedisSerializer.isJdkSerialized(RedisConfig.valueSerializer("compact").serialize("s")));
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedExecutorTest {
+
+    @Test
+    void runsTasksOfOneKeyInOrderAndKeysInParallel() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            KeyedExecutor executor = new KeyedExecutor(pool, 10_000);
+            int keys = 4;
+            int tasksPerKey = 2000;
+            Map<Integer, List<Integer>> seen = new ConcurrentHashMap<>();
+            Map<Integer, AtomicInteger> running = new ConcurrentHashMap<>();
+            AtomicInteger overlaps = new AtomicInteger();
+            // Первые задачи всех ключей ждут друг друга: дождутся, только если ключи выполняются параллельно
+            CountDownLatch firstTasks = new CountDownLatch(keys);
+            AtomicBoolean parallel = new AtomicBoolean(true);
+
+            for (int i = 0; i < tasksPerKey; i++) {
+                for (int key = 0; key < keys; key++) {
+                    int k = key;
+                    int n = i;
+                    assertTrue(executor.execute(k, () -> {
+                        if (running.computeIfAbsent(k, x -> new AtomicInteger()).incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        if (n == 0) {
+                            firstTasks.countDown();
+                            parallel.compareAndSet(true, await(firstTasks));
+                        }
+                        // Список ключа без синхронизации: задачи одного ключа не пересекаются
+                        seen.computeIfAbsent(k, x -> new ArrayList<>()).add(n);
+                        running.get(k).decrementAndGet();
+                    }));
+                }
+            }
+            awaitIdle(executor);
+
+            assertEquals(0, overlaps.get());
+            for (int key = 0; key < keys; key++) {
+                List<Integer> order = seen.get(key);
+                assertEquals(tasksPerKey, order.size());
+                for (int i = 0; i < tasksPerKey; i++) {
+                    assertEquals(i, order.get(i));
+                }
+            }
+            assertTrue(parallel.get(), "keys never ran in parallel");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void dropsTasksBeyondPerKeyLimit() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            KeyedExecutor executor = new KeyedExecutor(pool, 2);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            List<Integer> done = new ArrayList<>();
+
+            // Первая задача выполняется и держит ключ, очередь ключа - две ожидающие задачи
+            assertTrue(executor.execute("chat", () -> {
+                started.countDown();
+                await(release);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(executor.execute("chat", () -> done.add(1)));
+            assertTrue(executor.execute("chat", () -> done.add(2)));
+            assertFalse(executor.execute("chat", () -> done.add(3)));
+            assertEquals(2, executor.getQueueDepth("chat"));
+
+            release.countDown();
+            awaitIdle(executor);
+            assertEquals(List.of(1, 2), done);
+            assertEquals(0, executor.getQueuedTasks());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsNewKeyWithoutBlockingWhenSaturated() throws Exception {
+        BoundedExecutor bounded = new BoundedExecutor(Executors.newFixedThreadPool(1), 1, 0);
+        try {
+            KeyedExecutor executor = new KeyedExecutor(bounded);
+            CountDownLatch release = new CountDownLatch(1);
+            executor.execute("a", () -> await(release));
+
+            long startedAt = System.nanoTime();
+            assertThrows(RejectedExecutionException.class, () -> executor.execute("b", () -> { }));
+            assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1));
+            assertEquals(0, executor.getQueueDepth("b"));
+
+            release.countDown();
+            awaitIdle(executor);
+            assertTrue(executor.execute("b", () -> { }));
+        } finally {
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    void rejectedStartDropsOtherCallersTasksVisibly() throws Exception {
+        CountDownLatch joined = new CountDownLatch(1);
+        CountDownLatch starting = new CountDownLatch(1);
+        // Исполнитель отклоняет запуск очереди, пока второй вызов успевает добавить в нее задачу
+        KeyedExecutor executor = new KeyedExecutor(command -> {
+            starting.countDown();
+            await(joined);
+            throw new RejectedExecutionException("saturated");
+        });
+
+        Thread other = new Thread(() -> {
+            await(starting);
+            assertTrue(executor.execute("chat", () -> { }));
+            joined.countDown();
+        });
+        other.start();
+        assertThrows(RejectedExecutionException.class, () -> executor.execute("chat", () -> { }));
+        other.join(5000);
+
+        assertEquals(1, executor.getLostTasks());
+        assertEquals(0, executor.getQueuedTasks());
+        assertEquals(0, executor.getActiveKeys());
+    }
+
+    static void awaitIdle(KeyedExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveKeys() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, executor.getActiveKeys());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisRoundTripsTest {
+
+    @Test
+    void countsRedisCallsPerOperation() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Operations operations = proxy(new Operations(), registry);
+
+        operations.read(3);
+        operations.read(1);
+        // Вне операции обращения не считаются
+        RedisRoundTrips.record();
+
+        DistributionSummary read = registry.get("chat.redis.roundtrips").tag("operation", "read").summary();
+        assertEquals(2, read.count());
+        assertEquals(4, read.totalAmount());
+        assertEquals(3, read.max());
+    }
+
+    @Test
+    void nestedOperationAddsToOuter() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Operations operations = new Operations();
+        Operations proxy = proxy(operations, registry);
+        operations.self = proxy;
+
+        proxy.readTwice();
+
+        assertEquals(2, registry.get("chat.redis.roundtrips").tag("operation", "read").summary().count());
+        DistributionSummary outer = registry.get("chat.redis.roundtrips").tag("operation", "readTwice").summary();
+        assertEquals(1, outer.count());
+        assertEquals(5, outer.totalAmount());
+    }
+
+    private static Operations proxy(Operations target, SimpleMeterRegistry registry) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RedisRoundTrips(registry));
+        return factory.getProxy();
+    }
+
+    static class Operations {
+        Operations self;
+
+        @Timed(value = RedisRoundTrips.CHAT_OPERATIONS, extraTags = {"operation", "read"})
+        public void read(int calls) {
+            for (int i = 0; i < calls; i++) {
+                RedisRoundTrips.record();
+            }
+        }
+
+        @Timed(value = RedisRoundTrips.CHAT_OPERATIONS)
+        public void readTwice() {
+            RedisRoundTrips.record();
+            self.read(2);
+            self.read(2);
+        }
+    }
+}
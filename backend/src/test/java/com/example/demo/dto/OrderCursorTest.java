@@ -0,0 +1,42 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCursorTest {
+
+    @Test
+    void roundTripsThroughOpaqueString() {
+        OrderCursor cursor = new OrderCursor(LocalDateTime.of(2024, 6, 10, 12, 30, 15, 123_456_000), 10452L);
+        String value = cursor.format();
+
+        assertFalse(value.contains("|"));
+        assertFalse(value.contains("="));
+        assertEquals(cursor, OrderCursor.parse(value));
+    }
+
+    @Test
+    void missingCursorStartsFromTheTop() {
+        assertEquals(OrderCursor.FIRST, OrderCursor.parse(null));
+        assertEquals(OrderCursor.FIRST, OrderCursor.parse(""));
+    }
+
+    @Test
+    void cursorAfterPagePointsAtItsLastOrder() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 6, 10, 12, 30);
+        OrderSummary last = new OrderSummary(10452L, 731245678L, "МГУ", "Линейная алгебра", "Математика",
+                "2500", OrderStatus.COMPLETED, createdAt, 5512340987L);
+        assertEquals(new OrderCursor(createdAt, 10452L), OrderCursor.after(last));
+    }
+
+    @Test
+    void rejectsGarbage() {
+        for (String cursor : new String[]{"not base64!", "bm8tc2VwYXJhdG9y", "MjAyNHxhYmM"}) {
+            assertThrows(IllegalArgumentException.class, () -> OrderCursor.parse(cursor), cursor);
+        }
+    }
+}
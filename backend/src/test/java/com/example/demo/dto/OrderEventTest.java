@@ -0,0 +1,55 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventTest {
+
+    @Test
+    void feedEventCarriesOnlyFeedFields() throws Exception {
+        Order order = order(OrderStatus.OPEN);
+        OrderEvent.Feed feed = OrderEvent.of(OrderEvent.CREATED, order).forFeed();
+
+        assertEquals(OrderEvent.CREATED, feed.type());
+        String json = new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsString(feed);
+        assertTrue(json.contains("\"subject\":\"Линейная алгебра\""));
+        for (String hidden : new String[]{"731245678", "5512340987", "pay_42", "CONFIRMED", "ivan_petrov"}) {
+            assertFalse(json.contains(hidden), hidden);
+        }
+    }
+
+    @Test
+    void orderLeavingFeedBecomesRemoval() {
+        OrderEvent.Feed accepted = OrderEvent.of(OrderEvent.ACCEPTED, order(OrderStatus.ACCEPTED)).forFeed();
+        assertEquals(OrderEvent.REMOVED, accepted.type());
+        assertNull(accepted.order());
+
+        assertEquals(OrderEvent.REMOVED, OrderEvent.of(OrderEvent.DELETED, order(OrderStatus.OPEN)).forFeed().type());
+        assertNull(OrderEvent.of(OrderEvent.DELETED, order(OrderStatus.COMPLETED)).forFeed());
+        assertNull(OrderEvent.of(OrderEvent.STATUS_CHANGED, order(OrderStatus.COMPLETED)).forFeed());
+    }
+
+    private static Order order(OrderStatus status) {
+        Order order = new Order();
+        order.setId(10452L);
+        order.setTelegramUserId(731245678L);
+        order.setTelegramUsername("ivan_petrov");
+        order.setUniversity("МГУ");
+        order.setSubject("Линейная алгебра");
+        order.setCategory("Математика");
+        order.setPrice("2500");
+        order.setStatus(status);
+        order.setCreatedAt(LocalDateTime.of(2024, 6, 10, 12, 30));
+        order.setExecutorId(5512340987L);
+        order.setPaymentId("pay_42");
+        order.setPaymentStatus("CONFIRMED");
+        return order;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentOrderIdTest {
+
+    @Test
+    void parsesAndFormatsBack() {
+        String orderId = "5512340987-n10452-731245678-2024-06-10T12:30:15";
+        PaymentOrderId parsed = PaymentOrderId.parse(orderId);
+
+        assertEquals(5512340987L, parsed.userIdTo());
+        assertEquals(10452L, parsed.orderNumber());
+        assertEquals(731245678L, parsed.userIdFrom());
+        // Дата может сама содержать дефисы: все после третьего разделителя
+        assertEquals("2024-06-10T12:30:15", parsed.date());
+        assertEquals(orderId, parsed.format());
+    }
+
+    @Test
+    void rejectsMalformedIds() {
+        for (String orderId : new String[]{null, "", "5512340987-10452-731245678-2024", "5512340987-n10452",
+                "5512340987-n10452-731245678", "abc-n10452-731245678-2024", "5512340987-n-731245678-2024"}) {
+            assertThrows(IllegalArgumentException.class, () -> PaymentOrderId.parse(orderId), String.valueOf(orderId));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatusTest {
+
+    @Test
+    void acceptedIsReachableOnlyThroughAcceptOrder() {
+        for (OrderStatus status : OrderStatus.values()) {
+            assertFalse(status.canTransitionTo(OrderStatus.ACCEPTED), status.name());
+        }
+    }
+
+    @Test
+    void allowedTransitions() {
+        assertEquals(EnumSet.noneOf(OrderStatus.class), OrderStatus.OPEN.nextStatuses());
+        assertTrue(OrderStatus.ACCEPTED.canTransitionTo(OrderStatus.OPEN));
+        assertTrue(OrderStatus.ACCEPTED.canTransitionTo(OrderStatus.PAYMENT_LINK_SENT));
+        assertTrue(OrderStatus.ACCEPTED.canTransitionTo(OrderStatus.COMPLETED));
+        assertTrue(OrderStatus.PAYMENT_LINK_SENT.canTransitionTo(OrderStatus.PAYMENT_LINK_SENT));
+        assertTrue(OrderStatus.PAYMENT_LINK_SENT.canTransitionTo(OrderStatus.COMPLETED));
+        assertFalse(OrderStatus.PAYMENT_LINK_SENT.canTransitionTo(OrderStatus.OPEN));
+        assertFalse(OrderStatus.OPEN.canTransitionTo(OrderStatus.COMPLETED));
+        assertEquals(EnumSet.noneOf(OrderStatus.class), OrderStatus.COMPLETED.nextStatuses());
+    }
+
+    @Test
+    void parsesNamesAndLegacyLabels() {
+        assertEquals(OrderStatus.COMPLETED, OrderStatus.parse("COMPLETED"));
+        assertEquals(OrderStatus.PAYMENT_LINK_SENT, OrderStatus.parse("payment_link_sent"));
+        for (OrderStatus status : OrderStatus.values()) {
+            assertEquals(status, OrderStatus.parse(status.getLegacyLabel()));
+            assertEquals(status, OrderStatus.fromCode(status.getCode()));
+        }
+    }
+
+    @Test
+    void rejectsUnknownValues() {
+        assertThrows(IllegalArgumentException.class, () -> OrderStatus.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> OrderStatus.parse("DONE"));
+        assertThrows(IllegalArgumentException.class, () -> OrderStatus.fromCode((short) 9));
+    }
+}
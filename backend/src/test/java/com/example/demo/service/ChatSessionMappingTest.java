@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RedisConfig;
+import com.example.demo.entity.ChatSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Поля hash'а ChatSession, которые читают и пишут Lua-скрипты (scripts/session_*.lua), в том виде,
+ * в каком их пишет и читает Spring Data Redis.
+ */
+class ChatSessionMappingTest {
+    private static final String ISO_LAST_ACTIVITY = "2024-06-10T12:00";
+
+    @Test
+    void paidIsWrittenAsScriptsExpect() {
+        for (String mode : new String[]{"jdk", "compact"}) {
+            ChatSession session = session();
+            session.setPaid(true);
+            String paid = field(write(converter(mode), session), "paid");
+            // session_pay.lua и session_approve.lua считают оплаченной сессию с paid = '1' или 'true'
+            assertTrue(paid.equals("1") || paid.equals("true"), mode + ": " + paid);
+        }
+    }
+
+    @Test
+    void paidWrittenByScriptIsReadAsTrue() {
+        MappingRedisConverter converter = converter("compact");
+        RedisData data = write(converter, session());
+        data.getBucket().put("paid", "1".getBytes(StandardCharsets.UTF_8));
+        assertTrue(converter.read(ChatSession.class, data).getPaid());
+
+        data.getBucket().put("paid", "true".getBytes(StandardCharsets.UTF_8));
+        assertTrue(converter.read(ChatSession.class, data).getPaid());
+    }
+
+    @Test
+    void approvalsAndLastActivityWrittenByScriptAreRead() {
+        MappingRedisConverter converter = converter("jdk");
+        ChatSession session = session();
+        RedisData data = write(converter, session);
+        assertEquals(ISO_LAST_ACTIVITY, field(data, "lastActivity"));
+
+        // session_approve.lua добавляет элемент множества полем <set>.[i], lastActivity - epoch millis
+        data.getBucket().put("completionApprovals.[0]", "731245678".getBytes(StandardCharsets.UTF_8));
+        data.getBucket().put("closeApprovals.[0]", "5512340987".getBytes(StandardCharsets.UTF_8));
+        LocalDateTime now = LocalDateTime.of(2024, 6, 10, 12, 30, 15);
+        data.getBucket().put("lastActivity", Long.toString(ChatSessionTransitions.activityScore(now))
+                .getBytes(StandardCharsets.UTF_8));
+
+        ChatSession read = converter.read(ChatSession.class, data);
+        assertEquals(Set.of(731245678L), read.getCompletionApprovals());
+        assertEquals(Set.of(5512340987L), read.getCloseApprovals());
+        assertEquals(now, read.getLastActivity());
+    }
+
+    @Test
+    void compactModeWritesEpochMillis() {
+        ChatSession session = session();
+        assertEquals(Long.toString(ChatSessionTransitions.activityScore(session.getLastActivity())),
+                field(write(converter("compact"), session), "lastActivity"));
+    }
+
+    private static ChatSession session() {
+        ChatSession session = new ChatSession();
+        session.setSessionId("session_1718000000000_4821");
+        session.setUser1Id(731245678L);
+        session.setUser2Id(5512340987L);
+        session.setOrderId(10452L);
+        session.setLastActivity(LocalDateTime.parse(ISO_LAST_ACTIVITY));
+        session.refreshParticipantStatuses();
+        return session;
+    }
+
+    private static MappingRedisConverter converter(String mode) {
+        RedisConfig config = new RedisConfig();
+        ReflectionTestUtils.setField(config, "serializer", mode);
+        MappingRedisConverter converter = new MappingRedisConverter(new RedisMappingContext());
+        converter.setCustomConversions(config.redisCustomConversions());
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static RedisData write(MappingRedisConverter converter, ChatSession session) {
+        RedisData data = new RedisData();
+        converter.write(session, data);
+        return data;
+    }
+
+    private static String field(RedisData data, String name) {
+        byte[] value = data.getBucket().get(name);
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Те же переходы в режиме по умолчанию (app.redis.serializer=jdk): элементы индексов активных сессий
+ * сериализованы JDK, а не строками.
+ */
+@TestPropertySource(properties = "app.redis.serializer=jdk")
+class ChatSessionTransitionsJdkTest extends ChatSessionTransitionsTest {
+}
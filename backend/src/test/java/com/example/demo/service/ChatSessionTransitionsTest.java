@@ -0,0 +1,189 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RedisConfig;
+import com.example.demo.entity.ChatSession;
+import com.example.demo.repository.ChatSessionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.data.redis.DataRedisTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Коды переходов Lua-скриптов и чтение результата через репозиторий (режим compact, jdk - в ChatSessionTransitionsJdkTest).
+ * Нужен Redis на localhost:6379 (spring.data.redis.*). Запуск: ./gradlew integrationTest
+ */
+@Tag("integration")
+@DataRedisTest
+@Import({RedisConfig.class, ChatSessionCache.class, ChatSessionTransitions.class})
+@TestPropertySource(properties = "app.redis.serializer=compact")
+class ChatSessionTransitionsTest {
+    private static final Long CUSTOMER = 731245678L;
+    private static final Long EXECUTOR = 5512340987L;
+    private static final Long STRANGER = 42L;
+
+    @Autowired
+    private ChatSessionTransitions transitions;
+
+    @Autowired
+    private ChatSessionCache sessionCache;
+
+    @Autowired
+    private ChatSessionRepository repository;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${app.redis.serializer}")
+    private String serializer;
+
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        created.forEach(repository::deleteById);
+        redisTemplate.delete(List.of(ChatService.USER_ACTIVE_SESSIONS_KEY + CUSTOMER,
+                ChatService.USER_ACTIVE_SESSIONS_KEY + EXECUTOR));
+    }
+
+    @Test
+    void markPaidCodes() {
+        String sessionId = save(false);
+        assertEquals(ChatSessionTransitions.NOT_FOUND, transitions.markPaid("missing-" + sessionId, CUSTOMER));
+        assertEquals(ChatSessionTransitions.NOT_PARTICIPANT, transitions.markPaid(sessionId, STRANGER));
+        assertEquals(1, transitions.markPaid(sessionId, CUSTOMER));
+        assertEquals(0, transitions.markPaid(sessionId, EXECUTOR));
+        assertTrue(repository.findById(sessionId).orElseThrow().getPaid());
+    }
+
+    @Test
+    void paidSavedByRepositoryIsSeenByScripts() {
+        String sessionId = save(true);
+        assertEquals(0, transitions.markPaid(sessionId, CUSTOMER));
+        assertEquals(ChatSessionTransitions.APPLIED, transitions.confirmCompletion(sessionId, CUSTOMER).code());
+    }
+
+    @Test
+    void approvalCodes() {
+        String sessionId = save(false);
+        assertEquals(ChatSessionTransitions.NOT_FOUND,
+                transitions.confirmCompletion("missing-" + sessionId, CUSTOMER).code());
+        assertEquals(ChatSessionTransitions.NOT_PARTICIPANT, transitions.confirmCompletion(sessionId, STRANGER).code());
+        assertEquals(ChatSessionTransitions.NOT_PAID, transitions.confirmCompletion(sessionId, CUSTOMER).code());
+
+        transitions.markPaid(sessionId, CUSTOMER);
+        ChatSessionTransitions.Approval pending = transitions.approveClose(sessionId, CUSTOMER, true);
+        assertEquals(ChatSessionTransitions.COMPLETION_PENDING, pending.code());
+        assertEquals(0, pending.completions());
+
+        assertEquals(new ChatSessionTransitions.Approval(ChatSessionTransitions.APPLIED, 1, 1),
+                transitions.confirmCompletion(sessionId, CUSTOMER));
+        // Повторное подтверждение того же участника не считается вторым
+        assertEquals(new ChatSessionTransitions.Approval(ChatSessionTransitions.APPLIED, 1, 1),
+                transitions.confirmCompletion(sessionId, CUSTOMER));
+        assertEquals(new ChatSessionTransitions.Approval(ChatSessionTransitions.APPLIED, 2, 2),
+                transitions.confirmCompletion(sessionId, EXECUTOR));
+
+        assertEquals(new ChatSessionTransitions.Approval(ChatSessionTransitions.APPLIED, 1, 2),
+                transitions.approveClose(sessionId, CUSTOMER, true));
+        assertEquals(new ChatSessionTransitions.Approval(ChatSessionTransitions.CLOSED, 2, 2),
+                transitions.approveClose(sessionId, EXECUTOR, true));
+    }
+
+    @Test
+    void closeWithoutFinalStepKeepsSessionActive() {
+        String sessionId = save(false);
+        assertEquals(ChatSessionTransitions.APPLIED, transitions.approveClose(sessionId, CUSTOMER, false).code());
+        assertEquals(ChatSessionTransitions.APPLIED, transitions.approveClose(sessionId, EXECUTOR, false).code());
+        assertEquals("ACTIVE", repository.findById(sessionId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void closedSessionRoundTripsThroughRepository() {
+        String sessionId = save(false);
+        transitions.markPaid(sessionId, EXECUTOR);
+        transitions.confirmCompletion(sessionId, CUSTOMER);
+        transitions.confirmCompletion(sessionId, EXECUTOR);
+        transitions.approveClose(sessionId, CUSTOMER, true);
+        assertEquals(ChatSessionTransitions.CLOSED, transitions.approveClose(sessionId, EXECUTOR, true).code());
+
+        ChatSession closed = repository.findById(sessionId).orElseThrow();
+        assertEquals("CLOSED", closed.getStatus());
+        assertTrue(closed.getPaid());
+        assertEquals(Set.of(CUSTOMER, EXECUTOR), closed.getCompletionApprovals());
+        assertEquals(Set.of(CUSTOMER, EXECUTOR), closed.getCloseApprovals());
+        assertNotNull(closed.getLastActivity());
+
+        // Индекс участник:статус перенесен из ACTIVE в CLOSED у обоих участников
+        for (Long userId : List.of(CUSTOMER, EXECUTOR)) {
+            assertTrue(repository.findByParticipantAndStatus(userId, "ACTIVE").stream()
+                    .noneMatch(session -> session.getSessionId().equals(sessionId)));
+            assertTrue(repository.findByParticipantStatuses(ChatSession.participantStatus(userId, "ACTIVE")).stream()
+                    .noneMatch(session -> session.getSessionId().equals(sessionId)));
+            assertTrue(repository.findByParticipantAndStatus(userId, "CLOSED").stream()
+                    .anyMatch(session -> session.getSessionId().equals(sessionId)));
+        }
+    }
+
+    @Test
+    void touchMovesSessionInActiveSessionsIndex() {
+        String sessionId = save(false);
+        // Элементы индекса пишутся так же, как в ChatService: сериализатором значений redisTemplate
+        for (Long userId : List.of(CUSTOMER, EXECUTOR)) {
+            redisTemplate.opsForZSet().add(ChatService.USER_ACTIVE_SESSIONS_KEY + userId, sessionId, 1);
+        }
+
+        transitions.touch(repository.findById(sessionId).orElseThrow());
+
+        for (Long userId : List.of(CUSTOMER, EXECUTOR)) {
+            Double score = redisTemplate.opsForZSet().score(ChatService.USER_ACTIVE_SESSIONS_KEY + userId, sessionId);
+            assertNotNull(score);
+            assertTrue(score > 1);
+            assertEquals(1L, redisTemplate.opsForZSet().size(ChatService.USER_ACTIVE_SESSIONS_KEY + userId));
+        }
+        LocalDateTime lastActivity = repository.findById(sessionId).orElseThrow().getLastActivity();
+        assertNotNull(lastActivity);
+        assertTrue(lastActivity.isAfter(LocalDateTime.now().minusMinutes(1)));
+    }
+
+    @Test
+    void scriptsWriteLastActivityInRepositoryFormat() {
+        String sessionId = save(false);
+        transitions.markPaid(sessionId, CUSTOMER);
+
+        Object raw = stringRedisTemplate.opsForHash().get("ChatSession:" + sessionId, "lastActivity");
+        assertNotNull(raw);
+        // В jdk ISO-строка, которую читают и прежние версии; epoch millis - только в compact
+        assertEquals(!RedisConfig.isLegacy(serializer), raw.toString().chars().allMatch(Character::isDigit));
+        assertNotNull(repository.findById(sessionId).orElseThrow().getLastActivity());
+    }
+
+    private String save(boolean paid) {
+        ChatSession session = new ChatSession();
+        session.setSessionId("test_" + System.nanoTime());
+        session.setUser1Id(CUSTOMER);
+        session.setUser2Id(EXECUTOR);
+        session.setOrderId(10452L);
+        session.setUser1TempId("Заказчик_7421");
+        session.setUser2TempId("Исполнитель_1187");
+        session.setPaid(paid);
+        sessionCache.save(session);
+        created.add(session.getSessionId());
+        return session.getSessionId();
+    }
+}
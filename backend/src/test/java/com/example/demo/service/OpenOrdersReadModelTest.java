@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderEvent;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderStatus;
+import com.example.demo.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OpenOrdersReadModelTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private OpenOrdersReadModel model;
+
+    @BeforeEach
+    void setUp() {
+        OrderRepository repository = mock(OrderRepository.class);
+        when(repository.findByStatusOrderByCreatedAtDesc(OrderStatus.OPEN)).thenReturn(List.of(order(1L)));
+        model = new OpenOrdersReadModel(repository);
+        model.reload();
+    }
+
+    @Test
+    void appliesEventsFromOtherInstances() throws Exception {
+        receive(OrderEvent.of(OrderEvent.CREATED, order(2L)));
+        assertEquals(List.of(2L, 1L), ids(model.getOpenOrders("Математика", null, 0, -1)));
+
+        Order accepted = order(1L);
+        accepted.setStatus(OrderStatus.ACCEPTED);
+        accepted.setExecutorId(5512340987L);
+        receive(OrderEvent.of(OrderEvent.ACCEPTED, accepted));
+        assertEquals(List.of(2L), ids(model.getOpenOrders("Математика", null, 0, -1)));
+
+        receive(OrderEvent.of(OrderEvent.DELETED, order(2L)));
+        assertTrue(model.getOpenOrders(null, null, 0, -1).isEmpty());
+    }
+
+    @Test
+    void replacesOpenOrderChangedElsewhere() throws Exception {
+        Order repriced = order(1L);
+        repriced.setPrice("3000");
+        receive(OrderEvent.of(OrderEvent.STATUS_CHANGED, repriced));
+
+        List<Order> orders = model.getOpenOrders(null, null, 0, -1);
+        assertEquals(1, orders.size());
+        assertEquals("3000", orders.get(0).getPrice());
+    }
+
+    // Как в OrderEventHub.onMessage: событие проходит через JSON канала
+    private void receive(OrderEvent event) throws Exception {
+        model.onEvent(objectMapper.readValue(objectMapper.writeValueAsString(event), OrderEvent.class));
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setTelegramUserId(731245678L);
+        order.setUniversity("МГУ");
+        order.setSubject("Линейная алгебра");
+        order.setCategory("Математика");
+        order.setDescription("Контрольная работа");
+        order.setPrice("2500");
+        order.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 0).plusMinutes(id));
+        return order;
+    }
+
+    private static List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinkoffTokenSignerTest {
+    private static final String PASSWORD = "usaf8fw8fsw21g";
+
+    private TinkoffTokenSigner signer;
+
+    @BeforeEach
+    void setUp() {
+        signer = new TinkoffTokenSigner();
+        ReflectionTestUtils.setField(signer, "terminalPassword", PASSWORD);
+        signer.init();
+    }
+
+    @Test
+    void signMatchesLegacyTokenForInit() throws Exception {
+        Map<String, Object> init = initFields();
+        assertEquals(legacySign(init), signer.sign(init));
+    }
+
+    @Test
+    void signAndVerifyMatchLegacyTokenForNotification() throws Exception {
+        Map<String, Object> notification = notificationFields();
+        String legacy = legacySign(notification);
+        assertEquals(legacy, signer.sign(notification));
+
+        notification.put("Token", legacy);
+        assertTrue(signer.verify(notification, legacy));
+        assertTrue(signer.verify(notification, legacy.toUpperCase()));
+
+        notification.put("Amount", 150001L);
+        assertFalse(signer.verify(notification, legacy));
+    }
+
+    @Test
+    void verifyRejectsMalformedTokens() throws Exception {
+        Map<String, Object> notification = notificationFields();
+        String legacy = legacySign(notification);
+        assertFalse(signer.verify(notification, null));
+        assertFalse(signer.verify(notification, legacy.substring(1)));
+        assertFalse(signer.verify(notification, "g" + legacy.substring(1)));
+    }
+
+    @Test
+    void concurrentCallsDoNotShareWorkspaces() throws Exception {
+        Map<String, Object> init = initFields();
+        Map<String, Object> notification = notificationFields();
+        String initToken = legacySign(init);
+        String notificationToken = legacySign(notification);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                boolean even = i % 2 == 0;
+                results.add(pool.submit(() -> even
+                        ? initToken.equals(signer.sign(init))
+                        : signer.verify(notification, notificationToken)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Поля реального Init: Receipt и DATA в подписи не участвуют
+    private static Map<String, Object> initFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("TerminalKey", "1718000000000DEMO");
+        fields.put("Amount", 150000L);
+        fields.put("OrderId", "10452-1718000000000");
+        fields.put("Description", "Оплата заказа №10452 😀");
+        fields.put("SuccessURL", "https://t.me/studentsbotmainbot/student?startapp=payment_success");
+        fields.put("NotificationURL", "https://bot.example.com/api/payment/payment-status");
+        fields.put("DATA", Map.of("userIdFrom", "731245678", "userIdTo", "5512340987"));
+        fields.put("Receipt", Map.of("Email", "client@example.com", "Taxation", "usn_income",
+                "Items", List.of(Map.of("Name", "Заказ", "Price", 150000L, "Quantity", 1))));
+        return fields;
+    }
+
+    // Уведомление о платеже: Boolean Success, Long PaymentId/Amount/CardId, Integer
+    private static Map<String, Object> notificationFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("TerminalKey", "1718000000000DEMO");
+        fields.put("OrderId", "10452-1718000000000");
+        fields.put("Success", true);
+        fields.put("Status", "CONFIRMED");
+        fields.put("PaymentId", 3093639567L);
+        fields.put("ErrorCode", "0");
+        fields.put("Amount", 150000L);
+        fields.put("CardId", 322264L);
+        fields.put("Pan", "430000******0777");
+        fields.put("ExpDate", "1122");
+        fields.put("RebillId", -1);
+        fields.put("DATA", Map.of("Route", "ACQ"));
+        return fields;
+    }
+
+    // Прежняя реализация: TreeMap, String.valueOf, конкатенация и String.format на каждый байт
+    private static String legacySign(Map<String, ?> fields) throws Exception {
+        Map<String, String> sorted = new TreeMap<>();
+        for (Map.Entry<String, ?> field : fields.entrySet()) {
+            Object value = field.getValue();
+            if ("Token".equals(field.getKey()) || value == null
+                    || value instanceof Map || value instanceof Collection) {
+                continue;
+            }
+            sorted.put(field.getKey(), String.valueOf(value));
+        }
+        sorted.put("Password", PASSWORD);
+
+        StringBuilder concatenated = new StringBuilder();
+        for (String value : sorted.values()) {
+            concatenated.append(value);
+        }
+        byte[] hash = MessageDigest.getInstance("SHA-256")
+                .digest(concatenated.toString().getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import './CSS/ClientDashboard.css';
+import { orderStatusLabel } from './orderStatus';
 
 const ClientDashboard = ({ onClose, user }) => {
     const [activeTab, setActiveTab] = useState('create');
@@ -34,10 +35,26 @@ const ClientDashboard = ({ onClose, user }) => {
         }
     }, [currentUser]);
 
-    const loadOrders = async () => {
+    // Статусы заказов обновляются по SSE-событиям вместо периодического опроса
+    useEffect(() => {
         if (!currentUser?.id) return;
 
-        setIsLoading(true);
+        const source = new EventSource(`/api/orders/stream?userId=${currentUser.id}`);
+        const reload = () => {
+            loadOrders(true);
+            loadPastOrders();
+        };
+
+        ['order-created', 'order-accepted', 'order-status', 'order-deleted']
+            .forEach(type => source.addEventListener(type, reload));
+
+        return () => source.close();
+    }, [currentUser?.id]);
+
+    const loadOrders = async (silent = false) => {
+        if (!currentUser?.id) return;
+
+        if (!silent) setIsLoading(true);
         try {
             const response = await fetch(`/api/orders/user/${currentUser.id}/active`);
             if (response.ok) {
@@ -344,7 +361,7 @@ const CurrentOrdersTab = ({ orders, onCancelOrder, isLoading, formatDate, format
                     <div key={order.id} className="order-card">
                         <div className="order-header">
                             <h4>{order.subject} - {order.university}</h4>
-                            <span className={`status ${order.status.replace(' ', '-')}`}>{order.status}</span>
+                            <span className={`status ${order.status.toLowerCase()}`}>{orderStatusLabel(order.status)}</span>
                         </div>
                         <div className="order-details">
                             <div className="detail">
@@ -366,7 +383,7 @@ const CurrentOrdersTab = ({ orders, onCancelOrder, isLoading, formatDate, format
                         </div>
                         <div className="order-actions">
                             <button className="action-button">Подробнее</button>
-                            {order.status === 'в поиске' && (
+                            {order.status === 'OPEN' && (
                                 <button className="action-button cancel" onClick={() => onCancelOrder(order.id)}>
                                     Отменить
                                 </button>
@@ -407,6 +407,30 @@ const AvailableOrdersTab = ({ executorData }) => {
         fetchAvailableOrders();
     }, [executorData?.category]);
 
+    // Новые и ушедшие из поиска заказы приходят по SSE, без повторных запросов ленты
+    useEffect(() => {
+        if (!executorData?.category) return;
+
+        const userId = localStorage.getItem('UserId');
+        const source = new EventSource(`/api/orders/stream?category=${encodeURIComponent(executorData.category)}`);
+
+        const applyEvent = (e) => {
+            const event = JSON.parse(e.data);
+            const order = event.order;
+            if (event.type !== 'order-deleted' && order?.status === 'OPEN') {
+                if (String(order.telegramUserId) === userId) return;
+                setAvailableOrders(prev => [order, ...prev.filter(o => o.id !== order.id)]);
+            } else {
+                setAvailableOrders(prev => prev.filter(o => o.id !== event.orderId));
+            }
+        };
+
+        ['order-created', 'order-accepted', 'order-status', 'order-deleted']
+            .forEach(type => source.addEventListener(type, applyEvent));
+
+        return () => source.close();
+    }, [executorData?.category]);
+
     const fetchAvailableOrders = async () => {
         try {
             setIsLoading(true);
@@ -456,6 +480,9 @@ const AvailableOrdersTab = ({ executorData }) => {
 
             if (response.ok) {
                 alert("Отклик был отправлен");
+            } else if (response.status === 409) {
+                alert('Заказ уже принят другим исполнителем');
+                setAvailableOrders(prev => prev.filter(o => o.id !== orderId));
             } else {
                 alert('Ошибка при отправке отклика');
             }
@@ -0,0 +1,9 @@
+// Подписи статусов заказа; API отдает коды OrderStatus (OPEN, ACCEPTED, ...)
+export const ORDER_STATUS_LABELS = {
+    OPEN: 'в поиске',
+    ACCEPTED: 'принят исполнителем',
+    PAYMENT_LINK_SENT: 'получена ссылка на оплату',
+    COMPLETED: 'завершен',
+};
+
+export const orderStatusLabel = (status) => ORDER_STATUS_LABELS[status] || status;